@@ -0,0 +1,250 @@
+package com.citukay.ecommerce.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Small read-through cache with a size bound, a time-to-live per entry and hit/miss counters.
+ * Reads take no lock: each entry carries its last access time and the least recently used
+ * entries are trimmed in a batch once the bound is exceeded. Every load holds a token for its
+ * key; invalidating the key revokes the token, so a load that races with a write to the same
+ * key is not stored and can never shadow the value that replaced it.
+ */
+public class BoundedCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    // Size the cache is trimmed back to, so trimming runs once per maxSize / 16 inserts
+    private final int trimmedSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // Load token per key with a load in flight; only the holder of the current token may store
+    private final ConcurrentHashMap<K, Long> loading = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+    private final Object trimLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public BoundedCache(String name, int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.trimmedSize = Math.max(1, maxSize - maxSize / 16);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long token = beginLoad(key);
+        try {
+            Optional<V> loaded = loader.apply(key);
+            loaded.ifPresent(value -> storeIfCurrent(key, value, token));
+            return loaded;
+        } finally {
+            loading.remove(key, token);
+        }
+    }
+
+    public V getIfPresent(K key) {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            entry.accessedAt = now;
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null && entries.remove(key, entry)) {
+            evictions.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Batch read-through: cached keys are served from memory and the rest loaded with a single
+    // loader call. Keys the loader does not return are absent from the result.
+    public Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                found.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<K, Long> loadTokens = new LinkedHashMap<>();
+        missing.forEach(key -> loadTokens.put(key, beginLoad(key)));
+        try {
+            Map<K, V> loaded = loader.apply(missing);
+            loaded.forEach((key, value) -> {
+                Long token = loadTokens.get(key);
+                if (token != null) {
+                    storeIfCurrent(key, value, token);
+                }
+            });
+            found.putAll(loaded);
+            return found;
+        } finally {
+            loadTokens.forEach(loading::remove);
+        }
+    }
+
+    // Stores a value the caller did not load through the cache, e.g. one it just wrote
+    public void put(K key, V value) {
+        loading.remove(key);
+        insert(key, value);
+    }
+
+    public void invalidate(K key) {
+        // Revoke the token first: a load finishing after this point is dropped, one that
+        // finished before it has stored its value and the removal below takes it out again
+        loading.remove(key);
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateIf(BiPredicate<K, V> predicate) {
+        // Values still loading cannot be tested, so every load in flight is dropped
+        loading.clear();
+        entries.forEach((key, entry) -> {
+            if (predicate.test(key, entry.value) && entries.remove(key, entry)) {
+                invalidations.increment();
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        loading.clear();
+        entries.forEach((key, entry) -> {
+            if (entries.remove(key, entry)) {
+                invalidations.increment();
+            }
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(name, entries.size(), maxSize, hits.sum(), misses.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    private long beginLoad(K key) {
+        long token = tokens.incrementAndGet();
+        loading.put(key, token);
+        return token;
+    }
+
+    // The check and the insert run under the token's map lock, so an invalidation of the same
+    // key either revokes the token first or removes the inserted value afterwards
+    private void storeIfCurrent(K key, V value, long token) {
+        loading.computeIfPresent(key, (k, current) -> {
+            if (current == token) {
+                insert(k, value);
+                return null;
+            }
+            return current;
+        });
+    }
+
+    private void insert(K key, V value) {
+        long now = System.nanoTime();
+        entries.put(key, new Entry<>(value, now, now + ttlNanos));
+        if (entries.size() > maxSize) {
+            trim();
+        }
+    }
+
+    // Drops the least recently read entries until the cache is back under its bound
+    private void trim() {
+        synchronized (trimLock) {
+            if (entries.size() <= maxSize) {
+                return;
+            }
+            int excess = entries.size() - trimmedSize;
+            List<Map.Entry<K, Entry<V>>> byAccess = new ArrayList<>(entries.entrySet());
+            byAccess.sort(Comparator.comparingLong(e -> e.getValue().accessedAt));
+            for (int i = 0; i < excess && i < byAccess.size(); i++) {
+                Map.Entry<K, Entry<V>> eldest = byAccess.get(i);
+                if (entries.remove(eldest.getKey(), eldest.getValue())) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        // Written by readers without a lock; a lost update only makes the LRU order approximate
+        private volatile long accessedAt;
+
+        private Entry(V value, long accessedAt, long expiresAt) {
+            this.value = value;
+            this.accessedAt = accessedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    public static class Stats {
+        private final String name;
+        private final int size;
+        private final int maxSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+
+        public Stats(String name, int size, int maxSize, long hits, long misses, long evictions, long invalidations) {
+            this.name = name;
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+        }
+
+        public String getName() { return name; }
+        public int getSize() { return size; }
+        public int getMaxSize() { return maxSize; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.citukay.ecommerce.cart;
+
+import com.citukay.ecommerce.repository.CartItemRepository;
+import com.citukay.ecommerce.repository.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deletes carts nobody has modified for cart.purge.abandoned-after. Each chunk of carts is
+ * removed in its own short transaction with a pause in between, and a run stops after
+ * cart.purge.max-run, so the sweep never holds row locks for long. It is scheduled off-peak by
+ * cart.purge.cron ("-" disables it).
+ */
+@Component
+public class AbandonedCartSweeper {
+    private static final Logger log = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration abandonedAfter;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Duration maxRun;
+
+    public AbandonedCartSweeper(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                                CartStore cartStore, PlatformTransactionManager transactionManager,
+                                @Value("${cart.purge.abandoned-after:P30D}") Duration abandonedAfter,
+                                @Value("${cart.purge.chunk-size:500}") int chunkSize,
+                                @Value("${cart.purge.pause:PT0.2S}") Duration pause,
+                                @Value("${cart.purge.max-run:PT15M}") Duration maxRun) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.cartStore = cartStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.abandonedAfter = abandonedAfter;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.maxRun = maxRun;
+    }
+
+    @Scheduled(cron = "${cart.purge.cron:0 30 3 * * *}")
+    public void purgeAbandonedCarts() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(abandonedAfter);
+        long deadline = System.nanoTime() + maxRun.toNanos();
+        int purged = 0;
+
+        while (System.nanoTime() < deadline) {
+            List<Long> cartIds = cartRepository.findIdsUntouchedSince(cutoff, PageRequest.of(0, chunkSize));
+            if (cartIds.isEmpty()) {
+                break;
+            }
+            Integer deleted = transactionTemplate.execute(status -> {
+                cartItemRepository.deleteInCartsUntouchedSince(cartIds, cutoff);
+                return cartRepository.deleteUntouchedSince(cartIds, cutoff);
+            });
+            cartStore.purged(cartIds);
+            purged += deleted != null ? deleted : 0;
+            if (cartIds.size() < chunkSize || !sleep(pause)) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} carts untouched since {}", purged, cutoff);
+        }
+    }
+
+    private static boolean sleep(Duration pause) {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
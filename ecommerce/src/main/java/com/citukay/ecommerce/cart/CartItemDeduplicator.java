@@ -0,0 +1,92 @@
+package com.citukay.ecommerce.cart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merges duplicate (cart_id, product_id) lines before Hibernate's schema update runs. If duplicates
+ * are present, adding uk_cart_items_cart_product fails with only a log line, and the cart upsert
+ * then has no key to fire on. Each group keeps its oldest line with the summed quantity. Runs with
+ * plain JDBC in one transaction because JPA is not up yet (see SchemaConfig).
+ */
+@Component
+public class CartItemDeduplicator implements InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(CartItemDeduplicator.class);
+
+    private static final String FIND_DUPLICATES =
+            "SELECT cart_id, product_id, MIN(id), SUM(quantity) FROM cart_items " +
+            "GROUP BY cart_id, product_id HAVING COUNT(*) > 1";
+    private static final String MERGE_INTO_KEPT = "UPDATE cart_items SET quantity = ? WHERE id = ?";
+    private static final String DELETE_OTHERS = "DELETE FROM cart_items WHERE cart_id = ? AND product_id = ? AND id <> ?";
+    private static final String RECALCULATE_TOTAL =
+            "UPDATE carts SET version = version + 1, total_amount = " +
+            "(SELECT COALESCE(SUM(unit_price * quantity), 0) FROM cart_items WHERE cart_id = ?) WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CartItemDeduplicator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        List<long[]> duplicates;
+        try {
+            duplicates = jdbcTemplate.query(FIND_DUPLICATES, (rs, row) ->
+                    new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)});
+        } catch (DataAccessException e) {
+            // Fresh database: Hibernate has not created cart_items yet
+            return;
+        }
+        if (duplicates.isEmpty()) {
+            return;
+        }
+
+        int removed = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement merge = connection.prepareStatement(MERGE_INTO_KEPT);
+                 PreparedStatement delete = connection.prepareStatement(DELETE_OTHERS);
+                 PreparedStatement total = connection.prepareStatement(RECALCULATE_TOTAL)) {
+                int deleted = 0;
+                Set<Long> cartIds = new LinkedHashSet<>();
+                for (long[] group : duplicates) {
+                    merge.setLong(1, group[3]);
+                    merge.setLong(2, group[2]);
+                    merge.executeUpdate();
+                    delete.setLong(1, group[0]);
+                    delete.setLong(2, group[1]);
+                    delete.setLong(3, group[2]);
+                    deleted += delete.executeUpdate();
+                    cartIds.add(group[0]);
+                }
+                for (Long cartId : cartIds) {
+                    total.setLong(1, cartId);
+                    total.setLong(2, cartId);
+                    total.addBatch();
+                }
+                total.executeBatch();
+                connection.commit();
+                return deleted;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        log.warn("Merged {} duplicate cart lines in {} (cart, product) pairs", removed, duplicates.size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.citukay.ecommerce.cart;
+
+import com.citukay.ecommerce.repository.CartItemRepository;
+import com.citukay.ecommerce.repository.CartRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Brings stored cart lines back in line with catalog prices. Lines keep the price they were
+ * added at, so after a price change this pass rewrites the stale lines and recomputes the totals
+ * of only the carts that held them, a chunk of carts per transaction.
+ */
+@Component
+public class CartRepricer {
+    private static final Logger log = LoggerFactory.getLogger(CartRepricer.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CartRepricer(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                        PlatformTransactionManager transactionManager) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Returns the number of lines repriced
+    public int repriceStoredCarts() {
+        return updateInChunks(cartItemRepository.findCartIdsWithStalePrices(), cartItemRepository::repriceItems);
+    }
+
+    // Lines stored before unit_price existed count as zero in the running totals; give them the
+    // current catalog price once, leaving every captured price alone
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillUnitPrices() {
+        int lines = updateInChunks(cartItemRepository.findCartIdsWithoutUnitPrice(),
+                cartItemRepository::backfillUnitPrices);
+        if (lines > 0) {
+            log.info("Backfilled the unit price of {} cart lines", lines);
+        }
+    }
+
+    // Applies the line update to a chunk of carts and recomputes their totals in one transaction
+    private int updateInChunks(List<Long> cartIds, ToIntFunction<List<Long>> updateLines) {
+        int updated = 0;
+        for (int from = 0; from < cartIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = cartIds.subList(from, Math.min(from + CHUNK_SIZE, cartIds.size()));
+            Integer lines = transactionTemplate.execute(status -> {
+                int changed = updateLines.applyAsInt(chunk);
+                cartRepository.recalculateTotals(chunk);
+                return changed;
+            });
+            updated += lines != null ? lines : 0;
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,38 @@
+package com.citukay.ecommerce.cart;
+
+import com.citukay.ecommerce.dto.CartOperation;
+import com.citukay.ecommerce.entity.Cart;
+import com.citukay.ecommerce.entity.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where carts live, selected with the cart.store property. "database" (the default) applies
+ * every mutation to carts/cart_items directly; "write-behind" keeps active carts in memory and
+ * persists them in periodic batches.
+ */
+public interface CartStore {
+    Cart getCart(Long userId);
+
+    Cart addItem(Long userId, Product product, int quantity);
+
+    // A quantity of zero or less removes the line
+    Cart updateQuantity(Long userId, Long productId, int quantity);
+
+    Cart removeItem(Long userId, Long productId);
+
+    void clear(Long userId);
+
+    // Applies every operation or none of them, recalculating the total once at the end.
+    // products holds the product of every ADD operation, keyed by id.
+    Cart apply(Long userId, List<CartOperation> operations, Map<Long, Product> products);
+
+    // Called after the sweeper deleted these carts from the database
+    default void purged(Collection<Long> cartIds) {
+    }
+
+    // Re-captures current catalog prices on every cart line; returns the number of lines changed
+    int reprice();
+}
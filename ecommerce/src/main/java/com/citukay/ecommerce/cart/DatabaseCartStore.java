@@ -0,0 +1,182 @@
+package com.citukay.ecommerce.cart;
+
+import com.citukay.ecommerce.dto.CartOperation;
+import com.citukay.ecommerce.entity.Cart;
+import com.citukay.ecommerce.entity.CartItem;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.entity.User;
+import com.citukay.ecommerce.repository.CartItemRepository;
+import com.citukay.ecommerce.repository.CartRepository;
+import com.citukay.ecommerce.repository.UserRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseCartStore implements CartStore {
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final CartRepricer cartRepricer;
+
+    public DatabaseCartStore(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                             UserRepository userRepository, CartRepricer cartRepricer) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+        this.cartRepricer = cartRepricer;
+    }
+
+    @Override
+    public Cart getCart(Long userId) {
+        Optional<Cart> cart = cartRepository.findByUserId(userId);
+        if (cart.isPresent()) {
+            return cart.get();
+        } else {
+            // Find the user first
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+
+            // Create new cart WITH the user
+            Cart newCart = new Cart(user); // This will set the user
+            return cartRepository.save(newCart);
+        }
+    }
+
+    // Concurrent adds of one product must neither duplicate the line nor lose an increment, so the
+    // line is written with a single insert-or-increment and the total is adjusted in SQL rather
+    // than read-modify-written through the entity
+    @Override
+    @Transactional
+    public Cart addItem(Long userId, Product product, int quantity) {
+        Long cartId = cartRepository.findIdByUserId(userId).orElseGet(() -> getCart(userId).getId());
+        cartRepository.touch(cartId, LocalDateTime.now());
+        cartItemRepository.upsertQuantity(cartId, product.getId(), quantity, product.getPrice());
+        cartRepository.addToTotal(cartId, product.getId(), quantity);
+        return getCart(userId);
+    }
+
+    // The other mutations go through the loaded cart; its version turns a concurrent edit into an
+    // optimistic locking failure instead of a lost update
+    @Override
+    @Transactional
+    public Cart updateQuantity(Long userId, Long productId, int quantity) {
+        Cart cart = getCart(userId);
+        CartItem item = requireLine(cart, productId);
+
+        if (quantity <= 0) {
+            cart.adjustTotal(item.getItemTotal().negate());
+            cart.removeCartItem(item);
+            cartItemRepository.delete(item);
+        } else {
+            cart.adjustTotal(item.lineTotal(quantity - item.getQuantity()));
+            item.setQuantity(quantity);
+        }
+        return cartRepository.save(cart);
+    }
+
+    @Override
+    @Transactional
+    public Cart removeItem(Long userId, Long productId) {
+        Cart cart = getCart(userId);
+        CartItem item = requireLine(cart, productId);
+
+        cart.adjustTotal(item.getItemTotal().negate());
+        cart.removeCartItem(item);
+        cartItemRepository.delete(item);
+        return cartRepository.save(cart);
+    }
+
+    @Override
+    @Transactional
+    public void clear(Long userId) {
+        Optional<Long> cartId = cartRepository.findIdByUserId(userId);
+        if (cartId.isEmpty()) {
+            // Nothing to clear; still creates the cart (or fails for an unknown user) as before
+            getCart(userId);
+            return;
+        }
+        cartItemRepository.deleteAllInCart(cartId.get());
+        cartRepository.resetTotal(cartId.get(), LocalDateTime.now());
+    }
+
+    // Edits the loaded cart's lines in memory; orphan removal and cascading turn the changes into
+    // deletes/inserts/updates when the transaction commits
+    @Override
+    @Transactional
+    public Cart apply(Long userId, List<CartOperation> operations, Map<Long, Product> products) {
+        Cart cart = getCart(userId);
+        Map<Long, CartItem> lines = new HashMap<>();
+        for (CartItem item : cart.getCartItems()) {
+            lines.put(item.getProduct().getId(), item);
+        }
+
+        for (CartOperation operation : operations) {
+            CartItem item = lines.get(operation.getProductId());
+            switch (operation.getAction()) {
+                case ADD -> {
+                    if (item != null) {
+                        item.setQuantity(item.getQuantity() + operation.getQuantity());
+                        cart.adjustTotal(item.lineTotal(operation.getQuantity()));
+                    } else {
+                        CartItem newItem = new CartItem(cart, products.get(operation.getProductId()), operation.getQuantity());
+                        cart.addCartItem(newItem);
+                        cart.adjustTotal(newItem.getItemTotal());
+                        lines.put(operation.getProductId(), newItem);
+                    }
+                }
+                case UPDATE -> {
+                    if (item == null) {
+                        throw new RuntimeException("Item not found in cart");
+                    }
+                    if (operation.getQuantity() <= 0) {
+                        cart.adjustTotal(item.getItemTotal().negate());
+                        cart.removeCartItem(item);
+                        lines.remove(operation.getProductId());
+                    } else {
+                        cart.adjustTotal(item.lineTotal(operation.getQuantity() - item.getQuantity()));
+                        item.setQuantity(operation.getQuantity());
+                    }
+                }
+                case REMOVE -> {
+                    if (item == null) {
+                        throw new RuntimeException("Item not found in cart");
+                    }
+                    cart.adjustTotal(item.getItemTotal().negate());
+                    cart.removeCartItem(item);
+                    lines.remove(operation.getProductId());
+                }
+            }
+        }
+        return cartRepository.save(cart);
+    }
+
+    @Override
+    public int reprice() {
+        return cartRepricer.repriceStoredCarts();
+    }
+
+    private static CartItem findLine(Cart cart, Long productId) {
+        for (CartItem item : cart.getCartItems()) {
+            if (item.getProduct().getId().equals(productId)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static CartItem requireLine(Cart cart, Long productId) {
+        CartItem item = findLine(cart, productId);
+        if (item == null) {
+            throw new RuntimeException("Item not found in cart");
+        }
+        return item;
+    }
+}
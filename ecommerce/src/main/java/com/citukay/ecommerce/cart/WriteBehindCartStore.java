@@ -0,0 +1,597 @@
+package com.citukay.ecommerce.cart;
+
+import com.citukay.ecommerce.dto.CartOperation;
+import com.citukay.ecommerce.entity.Cart;
+import com.citukay.ecommerce.entity.CartItem;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.entity.User;
+import com.citukay.ecommerce.repository.CartRepository;
+import com.citukay.ecommerce.repository.ProductRepository;
+import com.citukay.ecommerce.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps active carts in memory, keyed by user id. A mutation only touches the in-memory cart
+ * under that cart's lock; a scheduled flush writes dirty carts to carts/cart_items as JDBC
+ * batches, one transaction per batch of carts. A failed batch is retried one cart at a time,
+ * so one bad cart cannot hold back the others; a cart that keeps failing for no known reason is
+ * given up after max-flush-attempts. Carts idle past the eviction timeout are dropped
+ * once clean, and everything dirty is flushed on shutdown, so a crash loses at most one flush
+ * interval of cart edits.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private static final String DELETE_ITEM = "DELETE FROM cart_items WHERE id = ?";
+    private static final String DELETE_CART_ITEMS = "DELETE FROM cart_items WHERE cart_id = ?";
+    private static final String UPDATE_ITEM = "UPDATE cart_items SET quantity = ?, unit_price = ? WHERE id = ?";
+    private static final String INSERT_ITEM =
+            "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_CART = "UPDATE carts SET total_amount = ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private final ConcurrentHashMap<Long, CartEntry> carts = new ConcurrentHashMap<>();
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final CartRepricer cartRepricer;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long idleEvictionNanos;
+    private final int maxFlushAttempts;
+
+    public WriteBehindCartStore(CartRepository cartRepository, UserRepository userRepository,
+                                ProductRepository productRepository, CartRepricer cartRepricer,
+                                JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${cart.write-behind.batch-size:500}") int batchSize,
+                                @Value("${cart.write-behind.idle-eviction:PT30M}") Duration idleEviction,
+                                @Value("${cart.write-behind.max-flush-attempts:5}") int maxFlushAttempts) {
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.cartRepricer = cartRepricer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.idleEvictionNanos = idleEviction.toNanos();
+        this.maxFlushAttempts = maxFlushAttempts;
+    }
+
+    @Override
+    public Cart getCart(Long userId) {
+        return withEntry(userId, false, entry -> { });
+    }
+
+    @Override
+    public Cart addItem(Long userId, Product product, int quantity) {
+        return withEntry(userId, true, entry -> {
+            entry.add(product.getId(), product, quantity);
+        });
+    }
+
+    @Override
+    public Cart updateQuantity(Long userId, Long productId, int quantity) {
+        return withEntry(userId, true, entry -> {
+            entry.requireItem(productId);
+            entry.setQuantity(productId, quantity);
+        });
+    }
+
+    @Override
+    public Cart removeItem(Long userId, Long productId) {
+        return withEntry(userId, true, entry -> {
+            entry.requireItem(productId);
+            entry.remove(productId);
+        });
+    }
+
+    @Override
+    public void clear(Long userId) {
+        withEntry(userId, true, CartEntry::clear);
+    }
+
+    @Override
+    public void purged(Collection<Long> cartIds) {
+        Set<Long> purged = new HashSet<>(cartIds);
+        for (Map.Entry<Long, CartEntry> cart : carts.entrySet()) {
+            CartEntry entry = cart.getValue();
+            if (purged.contains(entry.cartId)) {
+                synchronized (entry) {
+                    entry.evicted = true;
+                    carts.remove(cart.getKey(), entry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Cart apply(Long userId, List<CartOperation> operations, Map<Long, Product> products) {
+        return withEntry(userId, true, entry -> {
+            // Check the whole batch against the current lines first, so a bad operation changes nothing
+            Set<Long> lines = new HashSet<>(entry.items.keySet());
+            for (CartOperation operation : operations) {
+                boolean removes = operation.getAction() == CartOperation.Action.REMOVE
+                        || operation.getAction() == CartOperation.Action.UPDATE && operation.getQuantity() <= 0;
+                if (operation.getAction() == CartOperation.Action.ADD) {
+                    lines.add(operation.getProductId());
+                } else if (!(removes ? lines.remove(operation.getProductId()) : lines.contains(operation.getProductId()))) {
+                    throw new RuntimeException("Item not found in cart");
+                }
+            }
+
+            for (CartOperation operation : operations) {
+                switch (operation.getAction()) {
+                    case ADD -> entry.add(operation.getProductId(), products.get(operation.getProductId()),
+                            operation.getQuantity());
+                    case UPDATE -> entry.setQuantity(operation.getProductId(), operation.getQuantity());
+                    case REMOVE -> entry.remove(operation.getProductId());
+                }
+            }
+        });
+    }
+
+    // Reprices the carts held in memory and flushes them, then reprices the stored carts that are
+    // not resident
+    @Override
+    public int reprice() {
+        Set<Long> productIds = new HashSet<>();
+        for (CartEntry entry : carts.values()) {
+            synchronized (entry) {
+                productIds.addAll(entry.items.keySet());
+            }
+        }
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            prices.put(product.getId(), product.getPrice());
+        }
+
+        int repriced = 0;
+        for (CartEntry entry : carts.values()) {
+            synchronized (entry) {
+                int lines = entry.reprice(prices);
+                if (lines > 0) {
+                    entry.changed();
+                    repriced += lines;
+                }
+            }
+        }
+        flush();
+        return repriced + cartRepricer.repriceStoredCarts();
+    }
+
+    public int size() {
+        return carts.size();
+    }
+
+    // Applies the action to the user's cart under its lock and returns a copy safe to serialize
+    private Cart withEntry(Long userId, boolean mutation, Consumer<CartEntry> action) {
+        while (true) {
+            CartEntry entry = carts.get(userId);
+            if (entry == null) {
+                // Loaded outside the map so the database round trip never holds a bin lock;
+                // if two requests race, the first entry stored wins
+                CartEntry loaded = load(userId);
+                entry = carts.putIfAbsent(userId, loaded);
+                if (entry == null) {
+                    entry = loaded;
+                }
+            }
+            synchronized (entry) {
+                if (entry.evicted) {
+                    // Dropped by the flusher after we looked it up; load it again
+                    continue;
+                }
+                action.accept(entry);
+                if (mutation) {
+                    entry.changed();
+                }
+                entry.lastAccess = System.nanoTime();
+                return entry.toCart();
+            }
+        }
+    }
+
+    private CartEntry load(Long userId) {
+        Cart cart = cartRepository.findByUserId(userId).orElseGet(() -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+            try {
+                return cartRepository.save(new Cart(user));
+            } catch (DataIntegrityViolationException e) {
+                // Another loader created it first (carts.user_id is unique)
+                return cartRepository.findByUserId(userId).orElseThrow(() -> e);
+            }
+        });
+        return new CartEntry(cart);
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval:PT1S}")
+    public synchronized void flush() {
+        long now = System.nanoTime();
+        List<PendingFlush> pending = new ArrayList<>();
+        for (Map.Entry<Long, CartEntry> cart : carts.entrySet()) {
+            CartEntry entry = cart.getValue();
+            synchronized (entry) {
+                if (entry.isDirty()) {
+                    pending.add(new PendingFlush(entry));
+                } else if (now - entry.lastAccess > idleEvictionNanos) {
+                    entry.evicted = true;
+                    carts.remove(cart.getKey(), entry);
+                }
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<PendingFlush> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+                batch.forEach(PendingFlush::completed);
+            } catch (RuntimeException e) {
+                log.warn("Flushing {} carts failed, retrying them one by one: {}", batch.size(), e.getMessage());
+                batch.forEach(this::flushAlone);
+            }
+        }
+    }
+
+    private void flushAlone(PendingFlush flush) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(List.of(flush)));
+            flush.completed();
+        } catch (RuntimeException e) {
+            quarantine(flush, e);
+        }
+    }
+
+    // Works out why a cart cannot be written: a cart row purged underneath us drops the entry,
+    // lines for products deleted since they were added are dropped from it. Anything else stays
+    // dirty and is retried alone on the next flush, until maxFlushAttempts failures in a row drop
+    // the cart's unsaved changes. The checks run first, so a database outage throws out of here
+    // without counting against any cart.
+    private void quarantine(PendingFlush flush, RuntimeException failure) {
+        boolean cartExists = cartRepository.existsById(flush.cartId);
+        Set<Long> existingProducts = new HashSet<>();
+        if (cartExists) {
+            List<Long> productIds = flush.inserts.stream().map(line -> line.productId).toList();
+            productRepository.findAllById(productIds).forEach(product -> existingProducts.add(product.getId()));
+        }
+
+        CartEntry entry = flush.entry;
+        synchronized (entry) {
+            if (!cartExists) {
+                log.error("Cart {} no longer exists, dropping its unsaved changes", flush.cartId);
+                entry.evicted = true;
+                carts.values().remove(entry);
+                return;
+            }
+            boolean dropped = false;
+            for (NewLine line : flush.inserts) {
+                if (!existingProducts.contains(line.productId) && entry.items.get(line.productId) == line.item) {
+                    log.error("Dropping line for deleted product {} from cart {}", line.productId, flush.cartId);
+                    entry.remove(line.productId);
+                    entry.changed();
+                    dropped = true;
+                }
+            }
+            if (dropped) {
+                return;
+            }
+            entry.failedFlushes++;
+            if (entry.failedFlushes < maxFlushAttempts) {
+                log.warn("Flushing cart {} failed (attempt {} of {}): {}", flush.cartId, entry.failedFlushes,
+                        maxFlushAttempts, failure.getMessage());
+                return;
+            }
+            log.error("Flushing cart {} failed {} times in a row, dropping its unsaved changes",
+                    flush.cartId, entry.failedFlushes, failure);
+            entry.evicted = true;
+            carts.values().remove(entry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        // A second pass writes the carts the first one dropped bad lines from
+        flush();
+        int dirty = 0;
+        for (CartEntry entry : carts.values()) {
+            synchronized (entry) {
+                dirty += entry.isDirty() ? 1 : 0;
+            }
+        }
+        if (dirty > 0) {
+            log.error("{} carts could not be persisted on shutdown", dirty);
+        }
+    }
+
+    private void write(List<PendingFlush> batch) {
+        List<Object[]> clears = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<NewLine> inserts = new ArrayList<>();
+        List<Object[]> cartUpdates = new ArrayList<>();
+        for (PendingFlush flush : batch) {
+            if (flush.clear) {
+                clears.add(new Object[]{flush.cartId});
+            }
+            for (Long itemId : flush.deletes) {
+                deletes.add(new Object[]{itemId});
+            }
+            updates.addAll(flush.updates);
+            inserts.addAll(flush.inserts);
+            cartUpdates.add(new Object[]{flush.totalAmount, Timestamp.valueOf(flush.updatedAt), flush.cartId});
+        }
+
+        // Deletes first, so a line removed and re-added in one interval never collides with itself
+        if (!clears.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_CART_ITEMS, clears);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM, deletes);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ITEM, updates);
+        }
+        if (!inserts.isEmpty()) {
+            insertLines(inserts);
+        }
+        jdbcTemplate.batchUpdate(UPDATE_CART, cartUpdates);
+    }
+
+    // Batched insert that also reads back the generated ids, so later flushes can update the rows
+    private void insertLines(List<NewLine> lines) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ITEM, Statement.RETURN_GENERATED_KEYS)) {
+                for (NewLine line : lines) {
+                    statement.setLong(1, line.cartId);
+                    statement.setLong(2, line.productId);
+                    statement.setInt(3, line.quantity);
+                    statement.setBigDecimal(4, line.unitPrice);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (NewLine line : lines) {
+                        if (!keys.next()) {
+                            throw new SQLException("Missing generated key for cart item");
+                        }
+                        line.id = keys.getLong(1);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static final class CartEntry {
+        private final Long cartId;
+        private final LocalDateTime createdAt;
+        // product id -> line, in the order lines were added
+        private final Map<Long, CartItem> items = new LinkedHashMap<>();
+        // Persisted lines removed since the last flush
+        private final Set<Long> removedItemIds = new HashSet<>();
+        private BigDecimal totalAmount;
+        private LocalDateTime updatedAt;
+        // Bumped by every mutation; the cart is dirty while it is ahead of flushedVersion
+        private long version;
+        private long flushedVersion;
+        // Clears since load; a pending clear is written as one delete of all the cart's lines
+        private long clears;
+        private long flushedClears;
+        private long lastAccess = System.nanoTime();
+        private boolean evicted;
+        // Failed single-cart flushes in a row that quarantine could not explain
+        private int failedFlushes;
+
+        private CartEntry(Cart cart) {
+            this.cartId = cart.getId();
+            this.createdAt = cart.getCreatedAt();
+            this.updatedAt = cart.getUpdatedAt();
+            this.totalAmount = cart.getTotalAmount() != null ? cart.getTotalAmount() : BigDecimal.ZERO;
+            boolean unpriced = false;
+            for (CartItem item : cart.getCartItems()) {
+                if (item.getUnitPrice() == null) {
+                    // Stored before unit_price existed and not backfilled yet
+                    item.setUnitPrice(item.getProduct().getPrice());
+                    unpriced = true;
+                }
+                items.put(item.getProduct().getId(), item);
+            }
+            if (unpriced) {
+                totalAmount = items.values().stream().map(CartItem::getItemTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+                version++;
+            }
+        }
+
+        private CartItem requireItem(Long productId) {
+            CartItem item = items.get(productId);
+            if (item == null) {
+                throw new RuntimeException("Item not found in cart");
+            }
+            return item;
+        }
+
+        // Each mutation moves the running total by the changed line's delta
+
+        private void add(Long productId, Product product, int quantity) {
+            CartItem item = items.get(productId);
+            if (item != null) {
+                item.setQuantity(item.getQuantity() + quantity);
+                totalAmount = totalAmount.add(item.lineTotal(quantity));
+            } else {
+                item = new CartItem(null, product, quantity);
+                items.put(productId, item);
+                totalAmount = totalAmount.add(item.getItemTotal());
+            }
+        }
+
+        // A quantity of zero or less removes the line
+        private void setQuantity(Long productId, int quantity) {
+            if (quantity <= 0) {
+                remove(productId);
+                return;
+            }
+            CartItem item = items.get(productId);
+            totalAmount = totalAmount.add(item.lineTotal(quantity - item.getQuantity()));
+            item.setQuantity(quantity);
+        }
+
+        private void remove(Long productId) {
+            CartItem item = items.remove(productId);
+            if (item == null) {
+                return;
+            }
+            totalAmount = totalAmount.subtract(item.getItemTotal());
+            if (item.getId() != null) {
+                removedItemIds.add(item.getId());
+            }
+        }
+
+        private void clear() {
+            items.clear();
+            removedItemIds.clear();
+            totalAmount = BigDecimal.ZERO;
+            clears++;
+        }
+
+        // Returns the number of lines whose captured price changed
+        private int reprice(Map<Long, BigDecimal> prices) {
+            int repriced = 0;
+            for (Map.Entry<Long, CartItem> line : items.entrySet()) {
+                CartItem item = line.getValue();
+                BigDecimal price = prices.get(line.getKey());
+                if (price != null && (item.getUnitPrice() == null || price.compareTo(item.getUnitPrice()) != 0)) {
+                    totalAmount = totalAmount.subtract(item.getItemTotal());
+                    item.setUnitPrice(price);
+                    totalAmount = totalAmount.add(item.getItemTotal());
+                    repriced++;
+                }
+            }
+            return repriced;
+        }
+
+        private void changed() {
+            updatedAt = LocalDateTime.now();
+            version++;
+        }
+
+        private boolean isDirty() {
+            return version != flushedVersion;
+        }
+
+        private Cart toCart() {
+            Cart cart = new Cart();
+            cart.setId(cartId);
+            cart.setCreatedAt(createdAt);
+            cart.setUpdatedAt(updatedAt);
+            cart.setTotalAmount(totalAmount);
+            for (CartItem item : items.values()) {
+                CartItem copy = new CartItem(cart, item.getProduct(), item.getQuantity());
+                copy.setId(item.getId());
+                copy.setUnitPrice(item.getUnitPrice());
+                cart.getCartItems().add(copy);
+            }
+            return cart;
+        }
+    }
+
+    // A dirty cart's state as captured under its lock, written outside it
+    private static final class PendingFlush {
+        private final CartEntry entry;
+        private final long version;
+        private final long clears;
+        private final boolean clear;
+        private final Long cartId;
+        private final BigDecimal totalAmount;
+        private final LocalDateTime updatedAt;
+        private final List<Long> deletes;
+        private final List<Object[]> updates = new ArrayList<>();
+        private final List<NewLine> inserts = new ArrayList<>();
+
+        private PendingFlush(CartEntry entry) {
+            this.entry = entry;
+            this.version = entry.version;
+            this.clears = entry.clears;
+            this.clear = entry.clears != entry.flushedClears;
+            this.cartId = entry.cartId;
+            this.totalAmount = entry.totalAmount;
+            this.updatedAt = entry.updatedAt;
+            this.deletes = new ArrayList<>(entry.removedItemIds);
+            for (Map.Entry<Long, CartItem> line : entry.items.entrySet()) {
+                CartItem item = line.getValue();
+                if (item.getId() != null) {
+                    updates.add(new Object[]{item.getQuantity(), item.getUnitPrice(), item.getId()});
+                } else {
+                    inserts.add(new NewLine(item, entry.cartId, line.getKey(), item.getQuantity(), item.getUnitPrice()));
+                }
+            }
+        }
+
+        // Called after the batch committed
+        private void completed() {
+            synchronized (entry) {
+                entry.flushedVersion = Math.max(entry.flushedVersion, version);
+                entry.flushedClears = Math.max(entry.flushedClears, clears);
+                entry.failedFlushes = 0;
+                deletes.forEach(entry.removedItemIds::remove);
+                for (NewLine line : inserts) {
+                    line.item.setId(line.id);
+                    if (entry.items.get(line.productId) != line.item) {
+                        // Removed while its insert was in flight: delete the row on the next flush
+                        entry.removedItemIds.add(line.id);
+                        entry.version++;
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class NewLine {
+        private final CartItem item;
+        private final Long cartId;
+        private final Long productId;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+        private Long id;
+
+        private NewLine(CartItem item, Long cartId, Long productId, int quantity, BigDecimal unitPrice) {
+            this.item = item;
+            this.cartId = cartId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.citukay.ecommerce.catalog;
+
+import com.citukay.ecommerce.entity.Product;
+
+/**
+ * Receives product writes from ProductService so in-memory catalog structures can update
+ * incrementally instead of re-reading the products table.
+ */
+public interface CatalogListener {
+
+    // Called after a product has been created, updated or had its stock changed
+    void productSaved(Product product);
+
+    void productRemoved(Long productId);
+
+    // Called once the initial catalog load has been replayed through productSaved
+    default void catalogLoaded() {}
+}
@@ -0,0 +1,76 @@
+package com.citukay.ecommerce.catalog;
+
+import com.citukay.ecommerce.dto.ProductSlice;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.service.ProductCursor;
+import com.citukay.ecommerce.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Replays the whole catalog into every CatalogListener once at startup, walking the products
+ * table in keyset slices so the load never holds more than one slice of entities at a time.
+ * Runs as a lifecycle phase ahead of the web server and the scheduled jobs, so no product can
+ * be saved or deleted while the load is underway and a replayed slice never undoes a newer write.
+ */
+@Component
+public class CatalogLoader implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CatalogLoader.class);
+
+    private final ProductService productService;
+    private final List<CatalogListener> listeners;
+
+    public CatalogLoader(ProductService productService, List<CatalogListener> listeners) {
+        this.productService = productService;
+        this.listeners = listeners;
+    }
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        loadCatalog();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // The embedded web server starts in a much later phase
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void loadCatalog() {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        ProductCursor cursor = ProductCursor.first(ProductCursor.Sort.ID);
+        while (cursor != null) {
+            ProductSlice slice = productService.getProductSlice(cursor, ProductService.MAX_PAGE_SIZE, null, false);
+            for (Product product : slice.getItems()) {
+                for (CatalogListener listener : listeners) {
+                    listener.productSaved(product);
+                }
+                count++;
+            }
+            cursor = slice.isHasNext() ? ProductCursor.decode(slice.getNext(), ProductCursor.Sort.ID) : null;
+        }
+        for (CatalogListener listener : listeners) {
+            listener.catalogLoaded();
+        }
+        log.info("Loaded {} products into {} catalog listeners in {} ms",
+                count, listeners.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,59 @@
+package com.citukay.ecommerce.catalog;
+
+import com.citukay.ecommerce.entity.Category;
+import com.citukay.ecommerce.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide change counters used as HTTP validators. Collection endpoints derive their ETag
+ * from these counters instead of hashing a serialized body, so a 304 costs no database work.
+ * The startup time is part of every tag so counters restarting from zero never collide.
+ * Only ETags are used: Last-Modified has one-second precision, so two writes within the same
+ * second could answer an If-Modified-Since request with a stale 304.
+ */
+@Component
+public class CatalogVersion implements CatalogListener {
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong productVersion = new AtomicLong();
+    private final AtomicLong categoryVersion = new AtomicLong();
+
+    @Override
+    public void productSaved(Product product) {
+        productsChanged();
+    }
+
+    @Override
+    public void productRemoved(Long productId) {
+        productsChanged();
+    }
+
+    // Products embed their category in JSON, so a category write changes product listings too
+    public void categoriesChanged() {
+        categoryVersion.incrementAndGet();
+        productsChanged();
+    }
+
+    public String productsEtag() {
+        return "\"products-" + epoch + "-" + productVersion.get() + "\"";
+    }
+
+    public String categoriesEtag() {
+        return "\"categories-" + epoch + "-" + categoryVersion.get() + "\"";
+    }
+
+    public static String etag(Product product) {
+        Category category = product.getCategory();
+        return "\"product-" + product.getId() + "-" + product.getVersion()
+                + (category != null ? "-" + category.getVersion() : "") + "\"";
+    }
+
+    public static String etag(Category category) {
+        return "\"category-" + category.getId() + "-" + category.getVersion() + "\"";
+    }
+
+    private void productsChanged() {
+        productVersion.incrementAndGet();
+    }
+}
@@ -0,0 +1,175 @@
+package com.citukay.ecommerce.catalog;
+
+import com.citukay.ecommerce.dto.FacetResult;
+import com.citukay.ecommerce.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar in-memory snapshot of the catalog (category, price in cents, stock) used to compute
+ * every facet count for a filter in a single pass over primitive arrays. Rows are updated in
+ * place from product writes; removal moves the last row into the freed slot.
+ */
+@Component
+public class FacetIndex implements CatalogListener {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long UNCATEGORIZED = -1L;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] categoryOrdinals = new int[INITIAL_CAPACITY];
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+    private int[] stock = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final Map<Long, Integer> slots = new HashMap<>();
+    // Category ids are mapped to dense ordinals so per-category counts are a plain int[]
+    private final Map<Long, Integer> categoryOrdinalById = new HashMap<>();
+    private final List<Long> categoryIdByOrdinal = new ArrayList<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    @Override
+    public void productSaved(Product product) {
+        long categoryId = product.getCategory() != null ? product.getCategory().getId() : UNCATEGORIZED;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(product.getId());
+            if (slot == null) {
+                ensureCapacity(size + 1);
+                slot = size++;
+                slots.put(product.getId(), slot);
+            }
+            ids[slot] = product.getId();
+            categoryOrdinals[slot] = categoryOrdinal(categoryId);
+            priceCents[slot] = Prices.toCents(product.getPrice());
+            stock[slot] = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(productId);
+            if (slot == null) {
+                return;
+            }
+            int last = --size;
+            if (slot != last) {
+                ids[slot] = ids[last];
+                categoryOrdinals[slot] = categoryOrdinals[last];
+                priceCents[slot] = priceCents[last];
+                stock[slot] = stock[last];
+                slots.put(ids[slot], slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void catalogLoaded() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Computes total, category, price bucket and stock counts in one scan.
+     * bucketBounds are ascending lower bounds in cents; the last bucket is open-ended.
+     */
+    public FacetResult compute(Long categoryId, long minCents, long maxCents, boolean inStockOnly, long[] bucketBounds) {
+        lock.readLock().lock();
+        try {
+            Integer selectedOrdinal = categoryId != null ? categoryOrdinalById.get(categoryId) : null;
+            boolean unknownCategory = categoryId != null && selectedOrdinal == null;
+
+            int[] categoryCounts = new int[categoryIdByOrdinal.size()];
+            int[] bucketCounts = new int[bucketBounds.length];
+            int total = 0;
+            int inStockCount = 0;
+            int outOfStockCount = 0;
+
+            for (int i = 0; i < size; i++) {
+                boolean categoryMatch = !unknownCategory
+                        && (selectedOrdinal == null || categoryOrdinals[i] == selectedOrdinal);
+                long price = priceCents[i];
+                boolean priceMatch = price >= minCents && price <= maxCents;
+                boolean available = stock[i] > 0;
+                boolean stockMatch = !inStockOnly || available;
+
+                if (priceMatch && stockMatch) {
+                    categoryCounts[categoryOrdinals[i]]++;
+                }
+                if (categoryMatch && stockMatch) {
+                    int bucket = bucketOf(bucketBounds, price);
+                    if (bucket >= 0) {
+                        bucketCounts[bucket]++;
+                    }
+                }
+                if (categoryMatch && priceMatch) {
+                    if (available) {
+                        inStockCount++;
+                    } else {
+                        outOfStockCount++;
+                    }
+                    if (stockMatch) {
+                        total++;
+                    }
+                }
+            }
+
+            List<FacetResult.CategoryCount> categories = new ArrayList<>();
+            for (int ordinal = 0; ordinal < categoryCounts.length; ordinal++) {
+                if (categoryCounts[ordinal] > 0) {
+                    Long id = categoryIdByOrdinal.get(ordinal);
+                    categories.add(new FacetResult.CategoryCount(id == UNCATEGORIZED ? null : id, categoryCounts[ordinal]));
+                }
+            }
+            List<FacetResult.PriceBucket> buckets = new ArrayList<>();
+            for (int b = 0; b < bucketBounds.length; b++) {
+                buckets.add(new FacetResult.PriceBucket(
+                        Prices.fromCents(bucketBounds[b]),
+                        b + 1 < bucketBounds.length ? Prices.fromCents(bucketBounds[b + 1]) : null,
+                        bucketCounts[b]));
+            }
+            return new FacetResult(total, categories, buckets, inStockCount, outOfStockCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Index of the bucket whose lower bound is the greatest one <= price, or -1 below the first bound
+    private static int bucketOf(long[] bounds, long price) {
+        int index = Arrays.binarySearch(bounds, price);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private int categoryOrdinal(long categoryId) {
+        return categoryOrdinalById.computeIfAbsent(categoryId, id -> {
+            categoryIdByOrdinal.add(id);
+            return categoryIdByOrdinal.size() - 1;
+        });
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > ids.length) {
+            int capacity = Math.max(required, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            stock = Arrays.copyOf(stock, capacity);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.citukay.ecommerce.catalog;
+
+import com.citukay.ecommerce.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Price index partitioned by category. Each partition keeps prices as a sorted primitive long
+ * array of cents with parallel id and stock arrays, so a range query is two binary searches
+ * plus a scan of the matching run. Partitions are immutable and replaced copy-on-write, so
+ * readers never lock; writes are serialized and cost O(partition size). Products replayed
+ * during the startup load are buffered instead and each partition is sorted once at the end.
+ */
+@Component
+public class PriceIndex implements CatalogListener {
+    private static final long UNCATEGORIZED = -1L;
+
+    private final Map<Long, Partition> partitions = new ConcurrentHashMap<>();
+    // product id -> partition key it currently lives in
+    private final Map<Long, Long> productPartitions = new HashMap<>();
+    // product id -> entry, filled until catalogLoaded() builds the partitions in one go
+    private final Map<Long, Entry> loading = new LinkedHashMap<>();
+
+    private volatile boolean ready;
+
+    @Override
+    public synchronized void productSaved(Product product) {
+        long key = partitionKey(product.getCategory() != null ? product.getCategory().getId() : null);
+        long cents = Prices.toCents(product.getPrice());
+        int stock = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+        if (!ready) {
+            loading.put(product.getId(), new Entry(key, product.getId(), cents, stock));
+            return;
+        }
+        removeFromPartition(product.getId());
+        partitions.compute(key, (k, partition) -> (partition != null ? partition : Partition.EMPTY)
+                .with(product.getId(), cents, stock));
+        productPartitions.put(product.getId(), key);
+    }
+
+    @Override
+    public synchronized void productRemoved(Long productId) {
+        if (!ready) {
+            loading.remove(productId);
+            return;
+        }
+        removeFromPartition(productId);
+    }
+
+    // Sorts each partition's buffered entries once, instead of one array copy per product
+    @Override
+    public synchronized void catalogLoaded() {
+        Map<Long, List<Entry>> byPartition = new HashMap<>();
+        for (Entry entry : loading.values()) {
+            byPartition.computeIfAbsent(entry.partitionKey, k -> new ArrayList<>()).add(entry);
+            productPartitions.put(entry.id, entry.partitionKey);
+        }
+        for (Map.Entry<Long, List<Entry>> partition : byPartition.entrySet()) {
+            partitions.put(partition.getKey(), Partition.of(partition.getValue()));
+        }
+        loading.clear();
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns ids of products priced within [minCents, maxCents], cheapest first (ties by id).
+     * A null categoryId searches every category, merging the partitions in price order.
+     */
+    public List<Long> query(Long categoryId, long minCents, long maxCents, boolean inStockOnly, int limit) {
+        List<Long> ids = new ArrayList<>();
+        if (limit <= 0 || minCents > maxCents) {
+            return ids;
+        }
+
+        List<Partition> sources = new ArrayList<>();
+        if (categoryId != null) {
+            Partition partition = partitions.get(partitionKey(categoryId));
+            if (partition != null) {
+                sources.add(partition);
+            }
+        } else {
+            sources.addAll(partitions.values());
+        }
+
+        // k-way merge over the matching run of each partition, stopping once limit is reached
+        PriorityQueue<RangeCursor> queue = new PriorityQueue<>();
+        for (Partition partition : sources) {
+            RangeCursor cursor = new RangeCursor(partition, minCents, maxCents, inStockOnly);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        while (!queue.isEmpty() && ids.size() < limit) {
+            RangeCursor cursor = queue.poll();
+            ids.add(cursor.currentId());
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return ids;
+    }
+
+    private void removeFromPartition(Long productId) {
+        Long key = productPartitions.remove(productId);
+        if (key != null) {
+            partitions.computeIfPresent(key, (k, partition) -> {
+                Partition updated = partition.without(productId);
+                return updated.size() == 0 ? null : updated;
+            });
+        }
+    }
+
+    private static long partitionKey(Long categoryId) {
+        return categoryId != null ? categoryId : UNCATEGORIZED;
+    }
+
+    private static final class Entry {
+        private final long partitionKey;
+        private final long id;
+        private final long cents;
+        private final int stock;
+
+        Entry(long partitionKey, long id, long cents, int stock) {
+            this.partitionKey = partitionKey;
+            this.id = id;
+            this.cents = cents;
+            this.stock = stock;
+        }
+    }
+
+    private static final class Partition {
+        private static final Partition EMPTY = new Partition(new long[0], new long[0], new int[0]);
+
+        private final long[] cents;
+        private final long[] ids;
+        private final int[] stock;
+
+        private Partition(long[] cents, long[] ids, int[] stock) {
+            this.cents = cents;
+            this.ids = ids;
+            this.stock = stock;
+        }
+
+        static Partition of(List<Entry> entries) {
+            entries.sort(Comparator.<Entry>comparingLong(e -> e.cents).thenComparingLong(e -> e.id));
+            int n = entries.size();
+            long[] cents = new long[n];
+            long[] ids = new long[n];
+            int[] stock = new int[n];
+            for (int i = 0; i < n; i++) {
+                Entry entry = entries.get(i);
+                cents[i] = entry.cents;
+                ids[i] = entry.id;
+                stock[i] = entry.stock;
+            }
+            return new Partition(cents, ids, stock);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        Partition with(long id, long priceCents, int stockQuantity) {
+            int n = ids.length;
+            int insertAt = lowerBound(priceCents, id);
+            long[] newCents = new long[n + 1];
+            long[] newIds = new long[n + 1];
+            int[] newStock = new int[n + 1];
+            System.arraycopy(cents, 0, newCents, 0, insertAt);
+            System.arraycopy(ids, 0, newIds, 0, insertAt);
+            System.arraycopy(stock, 0, newStock, 0, insertAt);
+            newCents[insertAt] = priceCents;
+            newIds[insertAt] = id;
+            newStock[insertAt] = stockQuantity;
+            System.arraycopy(cents, insertAt, newCents, insertAt + 1, n - insertAt);
+            System.arraycopy(ids, insertAt, newIds, insertAt + 1, n - insertAt);
+            System.arraycopy(stock, insertAt, newStock, insertAt + 1, n - insertAt);
+            return new Partition(newCents, newIds, newStock);
+        }
+
+        Partition without(long id) {
+            int index = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return this;
+            }
+            int n = ids.length;
+            long[] newCents = Arrays.copyOf(cents, n - 1);
+            long[] newIds = Arrays.copyOf(ids, n - 1);
+            int[] newStock = Arrays.copyOf(stock, n - 1);
+            System.arraycopy(cents, index + 1, newCents, index, n - index - 1);
+            System.arraycopy(ids, index + 1, newIds, index, n - index - 1);
+            System.arraycopy(stock, index + 1, newStock, index, n - index - 1);
+            return new Partition(newCents, newIds, newStock);
+        }
+
+        // First position whose (price, id) is not less than the given key
+        int lowerBound(long priceCents, long id) {
+            int low = 0;
+            int high = ids.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cents[mid] < priceCents || (cents[mid] == priceCents && ids[mid] < id)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class RangeCursor implements Comparable<RangeCursor> {
+        private final Partition partition;
+        private final boolean inStockOnly;
+        private final int end;
+        private int position;
+
+        RangeCursor(Partition partition, long minCents, long maxCents, boolean inStockOnly) {
+            this.partition = partition;
+            this.inStockOnly = inStockOnly;
+            this.position = partition.lowerBound(minCents, Long.MIN_VALUE) - 1;
+            this.end = maxCents == Long.MAX_VALUE
+                    ? partition.size()
+                    : partition.lowerBound(maxCents + 1, Long.MIN_VALUE);
+        }
+
+        // Moves to the next in-range (and, if requested, in-stock) entry; false when exhausted
+        boolean advance() {
+            do {
+                position++;
+            } while (position < end && inStockOnly && partition.stock[position] <= 0);
+            return position < end;
+        }
+
+        long currentId() {
+            return partition.ids[position];
+        }
+
+        @Override
+        public int compareTo(RangeCursor other) {
+            int byPrice = Long.compare(partition.cents[position], other.partition.cents[other.position]);
+            return byPrice != 0 ? byPrice : Long.compare(currentId(), other.currentId());
+        }
+    }
+}
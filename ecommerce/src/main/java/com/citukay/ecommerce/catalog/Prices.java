@@ -0,0 +1,33 @@
+package com.citukay.ecommerce.catalog;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Conversions between the BigDecimal prices stored on Product and the long cents used by in-memory indexes
+public final class Prices {
+
+    private Prices() {}
+
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    // Amounts beyond the long range (only ever seen in filter bounds) clamp to it, which keeps
+    // their meaning as a range limit instead of failing the request
+    public static long toCents(BigDecimal price) {
+        if (price == null) {
+            return 0L;
+        }
+        BigDecimal cents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP);
+        if (cents.compareTo(MAX_CENTS) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(MIN_CENTS) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,45 @@
+package com.citukay.ecommerce.config;
+
+import com.citukay.ecommerce.cache.BoundedCache;
+import com.citukay.ecommerce.entity.Category;
+import com.citukay.ecommerce.entity.IdempotencyRecord;
+import com.citukay.ecommerce.entity.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public BoundedCache<Long, Product> productCache(
+            @Value("${catalog.cache.products.max-size:10000}") int maxSize,
+            @Value("${catalog.cache.products.ttl:PT10M}") Duration ttl) {
+        return new BoundedCache<>("products", maxSize, ttl);
+    }
+
+    @Bean
+    public BoundedCache<Long, Category> categoryCache(
+            @Value("${catalog.cache.categories.max-size:1000}") int maxSize,
+            @Value("${catalog.cache.categories.ttl:PT30M}") Duration ttl) {
+        return new BoundedCache<>("categories", maxSize, ttl);
+    }
+
+    // Holds the single "all categories" listing used by every storefront page load
+    @Bean
+    public BoundedCache<String, List<Category>> categoryListCache(
+            @Value("${catalog.cache.categories.ttl:PT30M}") Duration ttl) {
+        return new BoundedCache<>("categoryList", 1, ttl);
+    }
+
+    // Completed Idempotency-Key outcomes, keyed by scope and key; misses fall back to the table
+    @Bean
+    public BoundedCache<String, IdempotencyRecord> idempotencyCache(
+            @Value("${idempotency.cache.max-size:10000}") int maxSize,
+            @Value("${idempotency.cache.ttl:PT1H}") Duration ttl) {
+        return new BoundedCache<>("idempotency", maxSize, ttl);
+    }
+}
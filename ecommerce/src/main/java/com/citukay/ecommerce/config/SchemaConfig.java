@@ -0,0 +1,16 @@
+package com.citukay.ecommerce.config;
+
+import com.citukay.ecommerce.cart.CartItemDeduplicator;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Data repairs that have to finish before ddl-auto=update adds constraints existing rows would break
+@Configuration
+public class SchemaConfig {
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor cartItemDeduplicatorFirst() {
+        return new EntityManagerFactoryDependsOnPostProcessor(CartItemDeduplicator.class);
+    }
+}
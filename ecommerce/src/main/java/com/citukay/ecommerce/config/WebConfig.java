@@ -1,24 +1,56 @@
 package com.citukay.ecommerce.config;
 
+import com.citukay.ecommerce.web.AsyncTimeoutInterceptor;
+import com.citukay.ecommerce.web.UploadResourceHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+    // When someone requests /uploads/**, serve files from the 'uploads/' folder in your project root.
+    // Registered as its own mapping so the handler can set per-file cache headers and use sendfile.
+    @Bean
+    public UploadResourceHandler uploadResourceHandler() {
+        UploadResourceHandler handler = new UploadResourceHandler();
+        handler.setLocationValues(List.of("file:uploads/"));
+
+        // Also allow images to be accessed
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of("http://localhost:3000", "http://localhost:5173"));
+        cors.setAllowedMethods(List.of("GET"));
+        handler.setCorsConfiguration(cors);
+        return handler;
+    }
+
+    @Bean
+    public SimpleUrlHandlerMapping uploadHandlerMapping(UploadResourceHandler uploadResourceHandler) {
+        // Ahead of the registry's resource mappings, which sit at the lowest precedence
+        return new SimpleUrlHandlerMapping(Map.of("/uploads/**", uploadResourceHandler), Ordered.LOWEST_PRECEDENCE - 10);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // This tells Spring Boot: "When someone requests /uploads/**,
-        // serve files from the 'uploads/' folder in your project root"
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:uploads/");
-
         // Optional: Also serve from classpath for default images
         registry.addResourceHandler("/images/**")
                 .addResourceLocations("classpath:/static/images/");
     }
 
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Exports opt out of spring.mvc.async.request-timeout with @NoAsyncTimeout
+        configurer.registerCallableInterceptors(new AsyncTimeoutInterceptor());
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         // Allow React app to access your API
@@ -27,10 +59,5 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
                 .allowCredentials(true);
-
-        // Also allow images to be accessed
-        registry.addMapping("/uploads/**")
-                .allowedOrigins("http://localhost:3000", "http://localhost:5173")
-                .allowedMethods("GET");
     }
 }
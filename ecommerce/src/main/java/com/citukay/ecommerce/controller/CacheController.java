@@ -0,0 +1,28 @@
+package com.citukay.ecommerce.controller;
+
+import com.citukay.ecommerce.cache.BoundedCache;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "http://localhost:5173")
+public class CacheController {
+    private final List<BoundedCache<?, ?>> caches;
+
+    public CacheController(List<BoundedCache<?, ?>> caches) {
+        this.caches = caches;
+    }
+
+    // Hit/miss/eviction counters for every catalog cache
+    @GetMapping("/stats")
+    public List<BoundedCache.Stats> getStats() {
+        List<BoundedCache.Stats> stats = new ArrayList<>();
+        for (BoundedCache<?, ?> cache : caches) {
+            stats.add(cache.stats());
+        }
+        return stats;
+    }
+}
@@ -1,10 +1,16 @@
 package com.citukay.ecommerce.controller;
 
+import com.citukay.ecommerce.dto.CartOperation;
 import com.citukay.ecommerce.entity.Cart;
 import com.citukay.ecommerce.service.CartService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 //@CrossOrigin(origins = "http://localhost:3000")
 @CrossOrigin(origins = "http://localhost:5173")
@@ -36,16 +42,46 @@ public class CartController {
             @PathVariable Long userId,
             @PathVariable Long productId,
             @RequestParam Integer quantity) {
-        Cart cart = cartService.updateQuantity(userId, productId, quantity);
-        return ResponseEntity.ok(cart);
+        try {
+            Cart cart = cartService.updateQuantity(userId, productId, quantity);
+            return ResponseEntity.ok(cart);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     @DeleteMapping("/{userId}/remove/{productId}")
     public ResponseEntity<Cart> removeFromCart(
             @PathVariable Long userId,
             @PathVariable Long productId) {
-        Cart cart = cartService.removeFromCart(userId, productId);
-        return ResponseEntity.ok(cart);
+        try {
+            Cart cart = cartService.removeFromCart(userId, productId);
+            return ResponseEntity.ok(cart);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    // Applies a list of add/update/remove operations together; nothing changes if one is invalid
+    @PostMapping("/{userId}/batch")
+    public ResponseEntity<Cart> applyOperations(
+            @PathVariable Long userId,
+            @RequestBody List<CartOperation> operations) {
+        try {
+            Cart cart = cartService.applyOperations(userId, operations);
+            return ResponseEntity.ok(cart);
+        } catch (OptimisticLockingFailureException e) {
+            // The cart changed concurrently; the client reloads it and retries
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Re-captures current catalog prices on all cart lines and fixes the affected totals
+    @PostMapping("/reprice")
+    public ResponseEntity<Map<String, Integer>> repriceCarts() {
+        return ResponseEntity.ok(Map.of("repricedLines", cartService.repriceCarts()));
     }
 
     @DeleteMapping("/{userId}/clear")
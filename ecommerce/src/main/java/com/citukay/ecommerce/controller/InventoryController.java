@@ -0,0 +1,56 @@
+package com.citukay.ecommerce.controller;
+
+import com.citukay.ecommerce.inventory.InventoryService;
+import com.citukay.ecommerce.inventory.Reservation;
+import com.citukay.ecommerce.service.OrderService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@CrossOrigin(origins = "http://localhost:5173")
+@RequestMapping("/api/inventory")
+public class InventoryController {
+    private final InventoryService inventoryService;
+
+    public InventoryController(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @GetMapping("/{productId}")
+    public ResponseEntity<Map<String, Object>> getStock(@PathVariable Long productId) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "productId", productId,
+                    "available", inventoryService.available(productId),
+                    "reserved", inventoryService.reserved(productId)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Holds stock when checkout starts; the hold expires unless an order commits it first
+    @PostMapping("/reservations")
+    public ResponseEntity<Reservation> reserve(@RequestBody List<OrderService.OrderItemRequest> items) {
+        try {
+            return ResponseEntity.ok(inventoryService.reserve(OrderService.totalQuantities(items)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/reservations/{id}")
+    public ResponseEntity<Reservation> getReservation(@PathVariable String id) {
+        return inventoryService.getReservation(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Gives the units back when the shopper leaves checkout
+    @DeleteMapping("/reservations/{id}")
+    public ResponseEntity<Void> release(@PathVariable String id) {
+        return inventoryService.release(id) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -1,12 +1,40 @@
 package com.citukay.ecommerce.controller;
 
+import com.citukay.ecommerce.dto.OrderDto;
+import com.citukay.ecommerce.dto.OrderExportRow;
+import com.citukay.ecommerce.dto.OrderSummarySlice;
+import com.citukay.ecommerce.dto.StatusUpdateResult;
 import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.entity.OrderStatus;
+import com.citukay.ecommerce.idempotency.IdempotencyService;
+import com.citukay.ecommerce.order.AdmissionRejectedException;
+import com.citukay.ecommerce.order.FlashSaleAdmission;
+import com.citukay.ecommerce.order.OrderPipeline;
+import com.citukay.ecommerce.order.OrderProgress;
+import com.citukay.ecommerce.service.OrderCursor;
 import com.citukay.ecommerce.service.OrderService;
+import com.citukay.ecommerce.web.ExportFormat;
+import com.citukay.ecommerce.web.ExportWriter;
+import com.citukay.ecommerce.web.NoAsyncTimeout;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -15,47 +43,175 @@ import java.util.Optional;
 public class OrderController {
 
     private final OrderService orderService;
+    private final FlashSaleAdmission flashSaleAdmission;
+    private final OrderPipeline orderPipeline;
+    private final ExportWriter exportWriter;
+    private final IdempotencyService idempotencyService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, FlashSaleAdmission flashSaleAdmission,
+                           OrderPipeline orderPipeline, ExportWriter exportWriter,
+                           IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.flashSaleAdmission = flashSaleAdmission;
+        this.orderPipeline = orderPipeline;
+        this.exportWriter = exportWriter;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping
-    public List<Order> getAllOrders() {
-        return orderService.getAllOrders();
+    public List<OrderDto> getAllOrders() {
+        return OrderDto.fromAll(orderService.getAllOrders());
+    }
+
+    // Every order (optionally placed in [from, to)) streamed as CSV or NDJSON in id order
+    @GetMapping("/export")
+    @NoAsyncTimeout
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.getMediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename(exportFormat.fileName("orders")).build().toString())
+                    .body(exportWriter.stream(exportFormat, OrderExportRow.COLUMNS, OrderExportRow::values,
+                            () -> orderService.streamExportRows(from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderDto> getOrderById(@PathVariable Long id) {
         Optional<Order> order = orderService.getOrderById(id);
-        return order.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        return order.map(OrderDto::from).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/user/{userId}")
-    public List<Order> getOrdersByUser(@PathVariable Long userId) {
-        return orderService.getOrdersByUser(userId);
+    public List<OrderDto> getOrdersByUser(@PathVariable Long userId) {
+        return OrderDto.fromAll(orderService.getOrdersByUser(userId));
+    }
+
+    // Newest-first order history without line items; pass "next" back as cursor for the following
+    // slice and open a single order with GET /{id}
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<OrderSummarySlice> getOrderSummaries(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + OrderService.DEFAULT_PAGE_SIZE) int size) {
+        try {
+            return ResponseEntity.ok(orderService.getOrderSummaries(userId, OrderCursor.decode(cursor), size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
+    // Pass the reservationId from /api/inventory/reservations to commit stock held at checkout start.
+    // Flash-sale products answer 409 once sold out and 429 while their admission queue is full.
+    // A retry carrying the same Idempotency-Key gets the first response back instead of a new order.
     @PostMapping("/user/{userId}")
-    public ResponseEntity<Order> createOrder(
+    public CompletableFuture<ResponseEntity<?>> createOrder(
+            @PathVariable Long userId,
+            @RequestBody List<OrderService.OrderItemRequest> itemRequests,
+            @RequestParam(required = false) String reservationId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.executeAsync("createOrder", idempotencyKey,
+                Arrays.asList(userId, itemRequests, reservationId),
+                () -> flashSaleAdmission.placeOrder(userId, itemRequests, reservationId)
+                        .thenApply(order -> ResponseEntity.ok(OrderDto.from(order)))
+                        .exceptionally(this::orderRejected));
+    }
+
+    // Accepted-then-processed: answers 202 with the order number at once and processes the order
+    // in the background; follow it at the Location URL. 503 while the pipeline is saturated.
+    @PostMapping("/user/{userId}/async")
+    public ResponseEntity<OrderProgress> submitOrder(
             @PathVariable Long userId,
-            @RequestBody List<OrderService.OrderItemRequest> itemRequests) {
+            @RequestBody List<OrderService.OrderItemRequest> itemRequests,
+            @RequestParam(required = false) String reservationId,
+            @RequestParam(required = false) String paymentMethod) {
         try {
-            Order order = orderService.createOrder(userId, itemRequests);
-            return ResponseEntity.ok(order);
+            OrderProgress progress = orderPipeline.submit(userId, itemRequests, reservationId, paymentMethod);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/progress/" + progress.getOrderNumber()))
+                    .body(progress);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @GetMapping("/progress/{orderNumber}")
+    public ResponseEntity<OrderProgress> getProgress(@PathVariable String orderNumber) {
+        return orderPipeline.getProgress(orderNumber)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Server-sent "progress" events, one per stage, ending with COMPLETED or FAILED
+    @GetMapping(value = "/progress/{orderNumber}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> followProgress(@PathVariable String orderNumber) {
+        return orderPipeline.follow(orderNumber)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Products whose orders go through the flash-sale admission queue
+    @GetMapping("/flash-sale")
+    public Set<Long> getFlashSaleProducts() {
+        return flashSaleAdmission.getProductIds();
+    }
+
+    @PutMapping("/flash-sale/{productId}")
+    public ResponseEntity<Void> enableFlashSale(@PathVariable Long productId) {
+        flashSaleAdmission.enable(productId);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/flash-sale/{productId}")
+    public ResponseEntity<Void> disableFlashSale(@PathVariable Long productId) {
+        return flashSaleAdmission.disable(productId) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    // Answers 409 when the order's current status cannot move to the requested one
     @PutMapping("/{id}/status")
-    public ResponseEntity<Order> updateOrderStatus(@PathVariable Long id, @RequestParam String status) {
+    public ResponseEntity<OrderDto> updateOrderStatus(@PathVariable Long id, @RequestParam OrderStatus status) {
         try {
             Order order = orderService.updateOrderStatus(id, status);
-            return ResponseEntity.ok(order);
+            return ResponseEntity.ok(OrderDto.from(order));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    // Bulk form of the above for a list of order ids, e.g. a day's shipments; orders that cannot
+    // make the move are counted as skipped
+    @PutMapping("/status")
+    public ResponseEntity<StatusUpdateResult> updateOrderStatuses(@RequestParam OrderStatus status,
+                                                                  @RequestBody List<Long> orderIds) {
+        try {
+            return ResponseEntity.ok(orderService.updateOrderStatuses(orderIds, status));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<OrderDto> orderRejected(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof AdmissionRejectedException rejected) {
+            return rejected.getReason() == AdmissionRejectedException.Reason.SOLD_OUT
+                    ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                    : ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        if (!IdempotencyService.isValidationFailure(cause)) {
+            // Unexpected failures answer 500 and are not kept against the Idempotency-Key
+            throw failure instanceof CompletionException completion ? completion : new CompletionException(cause);
+        }
+        return ResponseEntity.badRequest().build();
+    }
 }
@@ -0,0 +1,21 @@
+package com.citukay.ecommerce.controller;
+
+import com.citukay.ecommerce.outbox.OutboxRelay;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/outbox")
+@CrossOrigin(origins = "http://localhost:5173")
+public class OutboxController {
+    private final OutboxRelay outboxRelay;
+
+    public OutboxController(OutboxRelay outboxRelay) {
+        this.outboxRelay = outboxRelay;
+    }
+
+    // Backlog size and delivery lag of the domain event relay
+    @GetMapping("/stats")
+    public OutboxRelay.Stats getStats() {
+        return outboxRelay.stats();
+    }
+}
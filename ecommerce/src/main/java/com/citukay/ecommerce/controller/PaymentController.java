@@ -1,10 +1,21 @@
 package com.citukay.ecommerce.controller;
 
+import com.citukay.ecommerce.dto.PaymentExportRow;
 import com.citukay.ecommerce.entity.Payment;
+import com.citukay.ecommerce.idempotency.IdempotencyService;
 import com.citukay.ecommerce.service.PaymentService;
+import com.citukay.ecommerce.web.ExportFormat;
+import com.citukay.ecommerce.web.ExportWriter;
+import com.citukay.ecommerce.web.NoAsyncTimeout;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,9 +25,14 @@ import java.util.Optional;
 @RequestMapping("/api/payments")
 public class PaymentController {
     private final PaymentService paymentService;
+    private final ExportWriter exportWriter;
+    private final IdempotencyService idempotencyService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, ExportWriter exportWriter,
+                             IdempotencyService idempotencyService) {
         this.paymentService = paymentService;
+        this.exportWriter = exportWriter;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping
@@ -24,6 +40,26 @@ public class PaymentController {
         return paymentService.getAllPayments();
     }
 
+    // Every payment (optionally paid in [from, to)) streamed as CSV or NDJSON in id order
+    @GetMapping("/export")
+    @NoAsyncTimeout
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.getMediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename(exportFormat.fileName("payments")).build().toString())
+                    .body(exportWriter.stream(exportFormat, PaymentExportRow.COLUMNS, PaymentExportRow::values,
+                            () -> paymentService.streamExportRows(from, to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Payment> getPaymentById(@PathVariable Long id) {
         Optional<Payment> payment = paymentService.getPaymentById(id);
@@ -35,15 +71,22 @@ public class PaymentController {
         return paymentService.getPaymentsByOrder(orderId);
     }
 
+    // A retry carrying the same Idempotency-Key gets the first response back instead of a second charge
     @PostMapping("/order/{orderId}")
-    public ResponseEntity<Payment> createPayment(
+    public ResponseEntity<?> createPayment(
             @PathVariable Long orderId,
-            @RequestParam String paymentMethod) {
-        try {
-            Payment payment = paymentService.createPayment(orderId, paymentMethod);
-            return ResponseEntity.ok(payment);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        }
+            @RequestParam String paymentMethod,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("createPayment", idempotencyKey, Arrays.asList(orderId, paymentMethod), () -> {
+            try {
+                Payment payment = paymentService.createPayment(orderId, paymentMethod);
+                return ResponseEntity.ok(payment);
+            } catch (RuntimeException e) {
+                if (!IdempotencyService.isValidationFailure(e)) {
+                    throw e;
+                }
+                return ResponseEntity.<Payment>badRequest().build();
+            }
+        });
     }
 }
@@ -1,10 +1,22 @@
 package com.citukay.ecommerce.controller;
 
+import com.citukay.ecommerce.catalog.CatalogVersion;
+import com.citukay.ecommerce.dto.FacetResult;
+import com.citukay.ecommerce.dto.ProductBatch;
+import com.citukay.ecommerce.dto.ProductSlice;
 import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.service.ProductCursor;
 import com.citukay.ecommerce.service.ProductService;
+import com.citukay.ecommerce.web.ProductStreamWriter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,35 +26,136 @@ import java.util.Optional;
 @RequestMapping("/api/products")
 public class ProductController {
     private final ProductService productService;
+    private final ProductStreamWriter productStreamWriter;
+    private final CatalogVersion catalogVersion;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductStreamWriter productStreamWriter,
+                             CatalogVersion catalogVersion) {
         this.productService = productService;
+        this.productStreamWriter = productStreamWriter;
+        this.catalogVersion = catalogVersion;
     }
 
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<StreamingResponseBody> getAllProducts(WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        return streamJson(productStreamWriter.streamAll(null, false));
+    }
+
+    // Several products by id in one round trip, e.g. ?ids=3,1,7; missing ids are reported, not an error
+    @GetMapping(params = "ids")
+    public ResponseEntity<ProductBatch> getProductsByIds(@RequestParam List<Long> ids, WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        try {
+            return revalidate(productService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Same as the multi-get, for id lists too long for a query string
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatch> getProductsByIdsBatch(@RequestBody List<Long> ids) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/available")
-    public List<Product> getAvailableProducts() {
-        return productService.getAvailableProducts();
+    public ResponseEntity<StreamingResponseBody> getAvailableProducts(WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        return streamJson(productStreamWriter.streamAll(null, true));
+    }
+
+    // Keyset-paginated catalog: pass the returned "next" token back as cursor to get the following slice
+    @GetMapping("/page")
+    public ResponseEntity<StreamingResponseBody> getProductPage(
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean available,
+            WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        try {
+            ProductCursor position = ProductCursor.decode(cursor, ProductCursor.parseSort(sort));
+            ProductSlice slice = productService.getProductSlice(position, size, categoryId, available);
+            return streamJson(productStreamWriter.streamSlice(slice));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable Long id, WebRequest request) {
         Optional<Product> product = productService.getProductById(id);
-        return product.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(CatalogVersion.etag(product.get()))) {
+            return notModified();
+        }
+        return revalidate(product.get());
     }
 
     @GetMapping("/category/{categoryId}")
-    public List<Product> getProductsByCategory(@PathVariable Long categoryId) {
-        return productService.getProductsByCategory(categoryId);
+    public ResponseEntity<StreamingResponseBody> getProductsByCategory(@PathVariable Long categoryId, WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        return streamJson(productStreamWriter.streamAll(categoryId, false));
     }
 
     @GetMapping("/search")
-    public List<Product> searchProducts(@RequestParam String keyword) {
-        return productService.searchProducts(keyword);
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam String keyword,
+                                                        @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit,
+                                                        WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        return revalidate(productService.searchProducts(keyword, Math.min(limit, ProductService.MAX_PAGE_SIZE)));
+    }
+
+    // Price range, category and stock in one call, answered from the in-memory price index
+    @GetMapping("/filter")
+    public ResponseEntity<List<Product>> filterProducts(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit,
+            WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        return revalidate(productService.filterProducts(categoryId, minPrice, maxPrice, inStock, limit));
+    }
+
+    // Category, price bucket and stock counts for the grid's current filters; buckets are lower bounds
+    @GetMapping("/facets")
+    public ResponseEntity<FacetResult> getFacets(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) List<BigDecimal> buckets,
+            WebRequest request) {
+        if (catalogNotModified(request)) {
+            return notModified();
+        }
+        return productService.getFacets(categoryId, minPrice, maxPrice, inStock, buckets)
+                .map(this::revalidate)
+                .orElse(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
     }
 
     @PostMapping
@@ -65,4 +178,23 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.ok().build();
     }
+
+    // Listings only change when the catalog version does, so a matching validator is answered
+    // with 304 before any query runs. checkNotModified also adds the ETag header.
+    private boolean catalogNotModified(WebRequest request) {
+        return request.checkNotModified(catalogVersion.productsEtag());
+    }
+
+    private <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+    }
+
+    // Caches may store the response but must revalidate it with the validators on every use
+    private <T> ResponseEntity<T> revalidate(T body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamJson(StreamingResponseBody body) {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
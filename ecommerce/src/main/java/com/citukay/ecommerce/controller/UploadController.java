@@ -1,45 +1,41 @@
 package com.citukay.ecommerce.controller;
 
+import com.citukay.ecommerce.media.ImagePipeline;
+import com.citukay.ecommerce.media.ImageVariant;
+import com.citukay.ecommerce.media.UploadStorage;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/upload")
 @CrossOrigin(origins = "http://localhost:5173")
 public class UploadController {
 
-    private final String UPLOAD_DIR = "uploads/products/";
+    private final UploadStorage uploadStorage;
+    private final ImagePipeline imagePipeline;
+
+    public UploadController(UploadStorage uploadStorage, ImagePipeline imagePipeline) {
+        this.uploadStorage = uploadStorage;
+        this.imagePipeline = imagePipeline;
+    }
 
     @PostMapping
     public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file) {
         try {
-            // Create directory if it doesn't exist
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
+            // Files are named by content hash, so re-uploading the same photo reuses the stored file
+            UploadStorage.StoredFile stored = uploadStorage.store(file);
 
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            }
-            String filename = UUID.randomUUID().toString() + fileExtension;
-
-            // Save file
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath);
+            // Resized variants are produced in the background. Duplicates are submitted too, in case
+            // the first submit was rejected or failed; the pipeline skips variants that exist.
+            imagePipeline.submit(stored.getPath());
 
             // Return the path
-            return ResponseEntity.ok().body(new UploadResponse("/uploads/products/" + filename));
+            String url = ImageVariant.UPLOAD_URL_PREFIX + stored.getFilename();
+            return ResponseEntity.ok().body(new UploadResponse(url, ImageVariant.urlsFor(url)));
 
         } catch (IOException e) {
             return ResponseEntity.status(500).body("Failed to upload file");
@@ -49,9 +45,11 @@ public class UploadController {
     // Response DTO
     static class UploadResponse {
         private String filePath;
+        private Map<String, String> variants;
 
-        public UploadResponse(String filePath) {
+        public UploadResponse(String filePath, Map<String, String> variants) {
             this.filePath = filePath;
+            this.variants = variants;
         }
 
         public String getFilePath() {
@@ -61,5 +59,13 @@ public class UploadController {
         public void setFilePath(String filePath) {
             this.filePath = filePath;
         }
+
+        public Map<String, String> getVariants() {
+            return variants;
+        }
+
+        public void setVariants(Map<String, String> variants) {
+            this.variants = variants;
+        }
     }
 }
\ No newline at end of file
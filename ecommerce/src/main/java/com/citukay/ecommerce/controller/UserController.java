@@ -1,5 +1,6 @@
 package com.citukay.ecommerce.controller;
 
+import com.citukay.ecommerce.dto.UserDto;
 import com.citukay.ecommerce.entity.User;
 import com.citukay.ecommerce.service.UserService;
 import org.springframework.http.HttpStatus;
@@ -22,8 +23,8 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public List<UserDto> getAllUsers() {
+        return userService.getAllUsers().stream().map(UserDto::from).toList();
     }
 
     @PostMapping
@@ -0,0 +1,53 @@
+package com.citukay.ecommerce.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+// One line edit in a batch cart update, e.g. {"action": "add", "productId": 3, "quantity": 2}
+public class CartOperation {
+    public enum Action {
+        ADD, UPDATE, REMOVE;
+
+        @JsonCreator
+        public static Action fromJson(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private Action action;
+    private Long productId;
+    private Integer quantity;
+
+    public CartOperation() {}
+
+    public CartOperation(Action action, Long productId, Integer quantity) {
+        this.action = action;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
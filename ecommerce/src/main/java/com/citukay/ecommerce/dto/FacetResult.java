@@ -0,0 +1,62 @@
+package com.citukay.ecommerce.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Facet counts for a filtered product grid. Each facet ignores its own filter (category counts
+ * ignore the selected category, price buckets ignore the price range, stock counts ignore the
+ * in-stock flag) so the storefront can show how many results each alternative would give.
+ */
+public class FacetResult {
+    private final int total;
+    private final List<CategoryCount> categories;
+    private final List<PriceBucket> priceBuckets;
+    private final int inStock;
+    private final int outOfStock;
+
+    public FacetResult(int total, List<CategoryCount> categories, List<PriceBucket> priceBuckets,
+                       int inStock, int outOfStock) {
+        this.total = total;
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+        this.inStock = inStock;
+        this.outOfStock = outOfStock;
+    }
+
+    public int getTotal() { return total; }
+    public List<CategoryCount> getCategories() { return categories; }
+    public List<PriceBucket> getPriceBuckets() { return priceBuckets; }
+    public int getInStock() { return inStock; }
+    public int getOutOfStock() { return outOfStock; }
+
+    public static class CategoryCount {
+        private final Long categoryId;
+        private final int count;
+
+        public CategoryCount(Long categoryId, int count) {
+            this.categoryId = categoryId;
+            this.count = count;
+        }
+
+        public Long getCategoryId() { return categoryId; }
+        public int getCount() { return count; }
+    }
+
+    // [min, max) in currency units; max is null for the open-ended top bucket
+    public static class PriceBucket {
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final int count;
+
+        public PriceBucket(BigDecimal min, BigDecimal max, int count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin() { return min; }
+        public BigDecimal getMax() { return max; }
+        public int getCount() { return count; }
+    }
+}
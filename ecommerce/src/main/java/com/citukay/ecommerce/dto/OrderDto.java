@@ -0,0 +1,77 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.entity.OrderItem;
+import com.citukay.ecommerce.entity.OrderStatus;
+import com.citukay.ecommerce.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-side view of an order with its lines. Built from an order loaded with
+ * Order.DETAIL_GRAPH, so mapping never triggers further queries.
+ */
+public class OrderDto {
+    private final Long id;
+    private final String orderNumber;
+    private final LocalDateTime orderDate;
+    private final BigDecimal totalAmount;
+    private final OrderStatus status;
+    private final UserDto user;
+    private final List<Item> orderItems;
+
+    private OrderDto(Order order) {
+        this.id = order.getId();
+        this.orderNumber = order.getOrderNumber();
+        this.orderDate = order.getOrderDate();
+        this.totalAmount = order.getTotalAmount();
+        this.status = order.getStatus();
+        this.user = order.getUser() != null ? UserDto.summary(order.getUser()) : null;
+        this.orderItems = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            this.orderItems.add(new Item(item));
+        }
+    }
+
+    public static OrderDto from(Order order) {
+        return new OrderDto(order);
+    }
+
+    public static List<OrderDto> fromAll(List<Order> orders) {
+        List<OrderDto> dtos = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            dtos.add(new OrderDto(order));
+        }
+        return dtos;
+    }
+
+    public Long getId() { return id; }
+    public String getOrderNumber() { return orderNumber; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public OrderStatus getStatus() { return status; }
+    public UserDto getUser() { return user; }
+    public List<Item> getOrderItems() { return orderItems; }
+
+    public static class Item {
+        private final Long id;
+        private final Integer quantity;
+        private final BigDecimal unitPrice;
+        private final Product product;
+
+        private Item(OrderItem item) {
+            this.id = item.getId();
+            this.quantity = item.getQuantity();
+            this.unitPrice = item.getUnitPrice();
+            this.product = item.getProduct();
+        }
+
+        public Long getId() { return id; }
+        public Integer getQuantity() { return quantity; }
+        public BigDecimal getUnitPrice() { return unitPrice; }
+        public Product getProduct() { return product; }
+    }
+}
@@ -0,0 +1,54 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One order as written by /api/orders/export; COLUMNS and values() give the CSV layout
+public class OrderExportRow {
+    public static final List<String> COLUMNS = List.of(
+            "id", "orderNumber", "orderDate", "status", "totalAmount", "userId", "userEmail", "itemCount");
+
+    private final Long id;
+    private final String orderNumber;
+    private final LocalDateTime orderDate;
+    private final OrderStatus status;
+    private final BigDecimal totalAmount;
+    private final Long userId;
+    private final String userEmail;
+    private final int itemCount;
+
+    public OrderExportRow(Long id, String orderNumber, LocalDateTime orderDate, OrderStatus status,
+                          BigDecimal totalAmount, Long userId, String userEmail, Integer itemCount) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.userId = userId;
+        this.userEmail = userEmail;
+        this.itemCount = itemCount == null ? 0 : itemCount;
+    }
+
+    public Object[] values() {
+        return new Object[]{id, orderNumber, orderDate, status, totalAmount, userId, userEmail, itemCount};
+    }
+
+    public Long getId() { return id; }
+
+    public String getOrderNumber() { return orderNumber; }
+
+    public LocalDateTime getOrderDate() { return orderDate; }
+
+    public OrderStatus getStatus() { return status; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+
+    public Long getUserId() { return userId; }
+
+    public String getUserEmail() { return userEmail; }
+
+    public int getItemCount() { return itemCount; }
+}
@@ -0,0 +1,22 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.OrderStatus;
+
+// What a bulk status change needs to know about an order, read without loading the entity
+public class OrderStatusRow {
+    private final Long id;
+    private final String orderNumber;
+    private final OrderStatus status;
+
+    public OrderStatusRow(Long id, String orderNumber, OrderStatus status) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.status = status;
+    }
+
+    public Long getId() { return id; }
+
+    public String getOrderNumber() { return orderNumber; }
+
+    public OrderStatus getStatus() { return status; }
+}
@@ -0,0 +1,38 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Order history row: the order header and how many lines it has, without loading the lines
+public class OrderSummary {
+    private final Long id;
+    private final String orderNumber;
+    private final LocalDateTime orderDate;
+    private final OrderStatus status;
+    private final BigDecimal totalAmount;
+    private final int itemCount;
+
+    public OrderSummary(Long id, String orderNumber, LocalDateTime orderDate, OrderStatus status,
+                        BigDecimal totalAmount, Integer itemCount) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.itemCount = itemCount == null ? 0 : itemCount;
+    }
+
+    public Long getId() { return id; }
+
+    public String getOrderNumber() { return orderNumber; }
+
+    public LocalDateTime getOrderDate() { return orderDate; }
+
+    public OrderStatus getStatus() { return status; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+
+    public int getItemCount() { return itemCount; }
+}
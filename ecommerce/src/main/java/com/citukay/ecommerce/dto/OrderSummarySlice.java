@@ -0,0 +1,20 @@
+package com.citukay.ecommerce.dto;
+
+import java.util.List;
+
+// One keyset page of a user's order history; next is null on the last slice
+public class OrderSummarySlice {
+    private final List<OrderSummary> items;
+    private final String next;
+
+    public OrderSummarySlice(List<OrderSummary> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<OrderSummary> getItems() { return items; }
+
+    public String getNext() { return next; }
+
+    public boolean isHasNext() { return next != null; }
+}
@@ -0,0 +1,54 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One payment as written by /api/payments/export; COLUMNS and values() give the CSV layout
+public class PaymentExportRow {
+    public static final List<String> COLUMNS = List.of(
+            "id", "transactionId", "paymentDate", "status", "paymentMethod", "amount", "orderId", "orderNumber");
+
+    private final Long id;
+    private final String transactionId;
+    private final LocalDateTime paymentDate;
+    private final PaymentStatus status;
+    private final String paymentMethod;
+    private final BigDecimal amount;
+    private final Long orderId;
+    private final String orderNumber;
+
+    public PaymentExportRow(Long id, String transactionId, LocalDateTime paymentDate, PaymentStatus status,
+                            String paymentMethod, BigDecimal amount, Long orderId, String orderNumber) {
+        this.id = id;
+        this.transactionId = transactionId;
+        this.paymentDate = paymentDate;
+        this.status = status;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+        this.orderId = orderId;
+        this.orderNumber = orderNumber;
+    }
+
+    public Object[] values() {
+        return new Object[]{id, transactionId, paymentDate, status, paymentMethod, amount, orderId, orderNumber};
+    }
+
+    public Long getId() { return id; }
+
+    public String getTransactionId() { return transactionId; }
+
+    public LocalDateTime getPaymentDate() { return paymentDate; }
+
+    public PaymentStatus getStatus() { return status; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public Long getOrderId() { return orderId; }
+
+    public String getOrderNumber() { return orderNumber; }
+}
@@ -0,0 +1,20 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.Product;
+
+import java.util.List;
+
+// Products for a multi-get in request order; ids with no product are listed in missingIds
+public class ProductBatch {
+    private final List<Product> products;
+    private final List<Long> missingIds;
+
+    public ProductBatch(List<Product> products, List<Long> missingIds) {
+        this.products = products;
+        this.missingIds = missingIds;
+    }
+
+    public List<Product> getProducts() { return products; }
+
+    public List<Long> getMissingIds() { return missingIds; }
+}
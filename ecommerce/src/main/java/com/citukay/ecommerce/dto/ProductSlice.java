@@ -0,0 +1,22 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.Product;
+
+import java.util.List;
+
+// One keyset page of the catalog; next is null on the last slice
+public class ProductSlice {
+    private final List<Product> items;
+    private final String next;
+
+    public ProductSlice(List<Product> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<Product> getItems() { return items; }
+
+    public String getNext() { return next; }
+
+    public boolean isHasNext() { return next != null; }
+}
@@ -0,0 +1,24 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.OrderStatus;
+
+// Outcome of a bulk status change; orders missing or not allowed to move to the status are skipped
+public class StatusUpdateResult {
+    private final OrderStatus status;
+    private final int requested;
+    private final int updated;
+
+    public StatusUpdateResult(OrderStatus status, int requested, int updated) {
+        this.status = status;
+        this.requested = requested;
+        this.updated = updated;
+    }
+
+    public OrderStatus getStatus() { return status; }
+
+    public int getRequested() { return requested; }
+
+    public int getUpdated() { return updated; }
+
+    public int getSkipped() { return requested - updated; }
+}
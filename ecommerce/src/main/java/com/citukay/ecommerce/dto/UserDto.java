@@ -0,0 +1,44 @@
+package com.citukay.ecommerce.dto;
+
+import com.citukay.ecommerce.entity.Address;
+import com.citukay.ecommerce.entity.User;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// Read-side view of a user; never exposes the password
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserDto {
+    private final Long id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String phone;
+    private final List<Address> addresses;
+
+    private UserDto(User user, List<Address> addresses) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+        this.phone = user.getPhone();
+        this.addresses = addresses;
+    }
+
+    // Includes addresses; the caller must have fetched them with the user
+    public static UserDto from(User user) {
+        return new UserDto(user, user.getAddresses());
+    }
+
+    // Identity only, for embedding in other views without touching the addresses collection
+    public static UserDto summary(User user) {
+        return new UserDto(user, null);
+    }
+
+    public Long getId() { return id; }
+    public String getEmail() { return email; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getPhone() { return phone; }
+    public List<Address> getAddresses() { return addresses; }
+}
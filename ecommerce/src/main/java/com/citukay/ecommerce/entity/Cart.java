@@ -11,14 +11,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = @Index(name = "idx_carts_updated_at", columnList = "updated_at"))
 public class Cart {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @JsonIgnore
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -27,6 +27,10 @@ public class Cart {
 
     private BigDecimal totalAmount;
 
+    // Optimistic lock; bulk updates of a cart row bump it as well
+    @Version
+    private long version;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -75,6 +79,14 @@ public class Cart {
         this.totalAmount = totalAmount;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -104,10 +116,15 @@ public class Cart {
 
     public void calculateTotal() {
         this.totalAmount = cartItems.stream()
-                .map(item -> item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .map(CartItem::getItemTotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    // Applies a change to the running total instead of summing every line again
+    public void adjustTotal(BigDecimal delta) {
+        this.totalAmount = (totalAmount != null ? totalAmount : BigDecimal.ZERO).add(delta);
+    }
+
     @Override
     public String toString() {
         return "Cart{" +
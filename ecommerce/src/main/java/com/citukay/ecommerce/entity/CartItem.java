@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"}))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class CartItem {
     @Id
@@ -19,12 +20,15 @@ public class CartItem {
     @JoinColumn(name = "cart_id")
     private Cart cart;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
     private Integer quantity;
 
+    // Price when the line was added; cart totals use this, not the live product price
+    private BigDecimal unitPrice;
+
     // Constructors
     public CartItem() {}
 
@@ -32,6 +36,7 @@ public class CartItem {
         this.cart = cart;
         this.product = product;
         this.quantity = quantity;
+        this.unitPrice = product != null ? product.getPrice() : null;
     }
 
     // Getters and Setters
@@ -67,10 +72,23 @@ public class CartItem {
         this.quantity = quantity;
     }
 
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
     // Utility method to get item total
     public BigDecimal getItemTotal() {
-        if (product != null && product.getPrice() != null && quantity != null) {
-            return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        return lineTotal(quantity);
+    }
+
+    // Total of this line at the given quantity, priced at the captured unit price
+    public BigDecimal lineTotal(Integer quantity) {
+        if (unitPrice != null && quantity != null) {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
         }
         return BigDecimal.ZERO;
     }
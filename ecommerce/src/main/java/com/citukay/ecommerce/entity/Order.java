@@ -8,8 +8,27 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+        uniqueConstraints = @UniqueConstraint(name = "uk_orders_order_number", columnNames = "order_number"),
+        indexes = {
+                @Index(name = "idx_orders_user_date", columnList = "user_id, order_date"),
+                @Index(name = "idx_orders_status_date", columnList = "status, order_date")
+        })
+@NamedEntityGraph(
+        name = Order.DETAIL_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("user"),
+                // Inverse side of a one-to-one: without the join Hibernate loads it with one query per order
+                @NamedAttributeNode("payment"),
+                @NamedAttributeNode(value = "orderItems", subgraph = "items")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+                @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode("category"))
+        })
 public class Order {
+    public static final String DETAIL_GRAPH = "Order.detail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -17,7 +36,8 @@ public class Order {
     private String orderNumber;
     private LocalDateTime orderDate;
     private BigDecimal totalAmount;
-    private String status; // PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
+    @Convert(converter = OrderStatusConverter.class)
+    private OrderStatus status;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
@@ -51,8 +71,16 @@ public class Order {
     public BigDecimal getTotalAmount() { return totalAmount; }
     public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+
+    // Applies a lifecycle step, refusing moves OrderStatus does not allow
+    public void moveTo(OrderStatus next) {
+        if (status == null || !status.canMoveTo(next)) {
+            throw new IllegalStateException("Order " + orderNumber + " cannot move from " + status + " to " + next);
+        }
+        this.status = next;
+    }
 
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
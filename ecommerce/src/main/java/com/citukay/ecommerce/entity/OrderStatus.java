@@ -0,0 +1,63 @@
+package com.citukay.ecommerce.entity;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Order lifecycle. An order is placed PENDING, confirmed by payment, then shipped and delivered;
+ * it can be cancelled until it ships. DELIVERED and CANCELLED are final.
+ */
+public enum OrderStatus {
+    PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED;
+
+    public Set<OrderStatus> nextStatuses() {
+        switch (this) {
+            case PENDING: return EnumSet.of(CONFIRMED, CANCELLED);
+            case CONFIRMED: return EnumSet.of(SHIPPED, CANCELLED);
+            case SHIPPED: return EnumSet.of(DELIVERED);
+            default: return EnumSet.noneOf(OrderStatus.class);
+        }
+    }
+
+    public boolean canMoveTo(OrderStatus next) {
+        return nextStatuses().contains(next);
+    }
+
+    /**
+     * Reads a stored status. Rows written before the column was typed may hold other spellings
+     * ('processing', 'paid', 'canceled', lower case), which are mapped. Any other value is refused
+     * rather than guessed, since guessing could reopen a finished order.
+     */
+    public static OrderStatus fromStored(String value) {
+        if (value == null) {
+            return null;
+        }
+        String name = value.trim().toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "PROCESSING":
+            case "PAID":
+                return CONFIRMED;
+            case "CANCELED":
+                return CANCELLED;
+            default:
+                for (OrderStatus status : values()) {
+                    if (status.name().equals(name)) {
+                        return status;
+                    }
+                }
+                throw new IllegalArgumentException("Unknown order status: " + value);
+        }
+    }
+
+    // Statuses an order may be in to move to the given one; bulk updates only touch those rows
+    public static Set<OrderStatus> sourcesOf(OrderStatus next) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.canMoveTo(next)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
+}
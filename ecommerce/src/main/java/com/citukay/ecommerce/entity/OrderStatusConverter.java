@@ -0,0 +1,19 @@
+package com.citukay.ecommerce.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Stores the enum name and reads legacy spellings (see OrderStatus.fromStored)
+@Converter
+public class OrderStatusConverter implements AttributeConverter<OrderStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(OrderStatus status) {
+        return status != null ? status.name() : null;
+    }
+
+    @Override
+    public OrderStatus convertToEntityAttribute(String value) {
+        return OrderStatus.fromStored(value);
+    }
+}
@@ -6,7 +6,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payments_transaction_id", columnNames = "transaction_id"))
 public class Payment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -14,7 +15,8 @@ public class Payment {
 
     private BigDecimal amount;
     private LocalDateTime paymentDate;
-    private String status; // PENDING, COMPLETED, FAILED, REFUNDED
+    @Convert(converter = PaymentStatusConverter.class)
+    private PaymentStatus status;
     private String paymentMethod; // CREDIT_CARD, PAYPAL, etc.
     private String transactionId;
 
@@ -35,8 +37,8 @@ public class Payment {
     public LocalDateTime getPaymentDate() { return paymentDate; }
     public void setPaymentDate(LocalDateTime paymentDate) { this.paymentDate = paymentDate; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public PaymentStatus getStatus() { return status; }
+    public void setStatus(PaymentStatus status) { this.status = status; }
 
     public String getPaymentMethod() { return paymentMethod; }
     public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
@@ -0,0 +1,21 @@
+package com.citukay.ecommerce.entity;
+
+import java.util.Locale;
+
+public enum PaymentStatus {
+    PENDING, COMPLETED, FAILED, REFUNDED;
+
+    // Reads a stored status regardless of case; any other value is refused rather than guessed
+    public static PaymentStatus fromStored(String value) {
+        if (value == null) {
+            return null;
+        }
+        String name = value.trim().toUpperCase(Locale.ROOT);
+        for (PaymentStatus status : values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown payment status: " + value);
+    }
+}
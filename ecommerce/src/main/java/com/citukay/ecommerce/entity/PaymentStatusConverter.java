@@ -0,0 +1,19 @@
+package com.citukay.ecommerce.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Stores the enum name and reads it regardless of case (see PaymentStatus.fromStored)
+@Converter
+public class PaymentStatusConverter implements AttributeConverter<PaymentStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(PaymentStatus status) {
+        return status != null ? status.name() : null;
+    }
+
+    @Override
+    public PaymentStatus convertToEntityAttribute(String value) {
+        return PaymentStatus.fromStored(value);
+    }
+}
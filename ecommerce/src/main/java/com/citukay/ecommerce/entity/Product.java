@@ -1,14 +1,25 @@
 package com.citukay.ecommerce.entity;
 
+import com.citukay.ecommerce.media.ImageVariant;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+        indexes = {
+                // Seek indexes for the price- and name-sorted catalog pages
+                @Index(name = "idx_products_price_id", columnList = "price, id"),
+                @Index(name = "idx_products_name_id", columnList = "name, id")
+        })
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Product {
     @Id
@@ -27,9 +38,16 @@ public class Product {
     private String imageUrl;
     private String sku;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Optimistic lock version; also the per-product validator for conditional GETs
+    @Version
+    private long version;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
-    @JsonIgnoreProperties({"products"})
+    @JsonIgnoreProperties({"products", "hibernateLazyInitializer", "handler"})
     private Category category;
 
     @JsonIgnore
@@ -69,9 +87,20 @@ public class Product {
     public String getImageUrl() { return imageUrl; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
 
+    // Thumbnail/grid/detail renditions of imageUrl; null when the image is not an upload.
+    // Derived, so a client echoing it back in a PUT body is ignored.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Map<String, String> getImageVariants() { return ImageVariant.urlsFor(imageUrl); }
+
     public String getSku() { return sku; }
     public void setSku(String sku) { this.sku = sku; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
     public Category getCategory() { return category; }
     public void setCategory(Category category) { this.category = category; }
 
@@ -0,0 +1,69 @@
+package com.citukay.ecommerce.id;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 63-bit ids: 41 bits of milliseconds since 2024-01-01, 10 bits of node id and a
+ * 12-bit sequence within the millisecond. The last (millisecond, sequence) pair lives in one
+ * AtomicLong advanced by compare-and-set. When the clock steps back, ids carry on from the last
+ * millisecond. When a millisecond's sequence runs out, callers spin until the clock reaches the
+ * next one. Ids therefore never run ahead of the clock, and a restart cannot hand out ids that
+ * were borrowed from the future before it (at most 4096 ids per millisecond per node).
+ */
+@Component
+public class SnowflakeIdGenerator {
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    // (milliseconds since EPOCH_MILLIS << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${ids.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("ids.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long next;
+            if (now > previous >>> SEQUENCE_BITS) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (last.compareAndSet(previous, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return millis << (NODE_BITS + SEQUENCE_BITS) | node | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    // Prefixed, upper-case base-36 form used for order numbers and payment transaction ids
+    public String nextId(String prefix) {
+        return prefix + Long.toString(nextId(), 36).toUpperCase();
+    }
+}
@@ -0,0 +1,293 @@
+package com.citukay.ecommerce.idempotency;
+
+import com.citukay.ecommerce.cache.BoundedCache;
+import com.citukay.ecommerce.entity.IdempotencyRecord;
+import com.citukay.ecommerce.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key and answers repeats with the stored response.
+ * Completed outcomes are looked up in a bounded in-memory cache backed by the idempotency_keys
+ * table. A repeat arriving while the first execution is still running on this instance waits for
+ * it; one running on another instance is answered with 409 and Retry-After. Reusing a key with a
+ * different request is refused with 422. Only successes and validation failures (400) are kept;
+ * any other outcome frees the key so the client can retry.
+ */
+@Component
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int PURGE_CHUNK_SIZE = 500;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final BoundedCache<String, IdempotencyRecord> completed;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration inFlightTimeout;
+    private final Duration staleAfter;
+    private final Duration retention;
+
+    // Executions running on this instance; repeats of the same key chain onto them
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              BoundedCache<String, IdempotencyRecord> idempotencyCache,
+                              ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                              @Value("${idempotency.in-flight-timeout:PT30S}") Duration inFlightTimeout,
+                              @Value("${idempotency.stale-after:PT15M}") Duration staleAfter,
+                              @Value("${idempotency.retention:P1D}") Duration retention) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.completed = idempotencyCache;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.inFlightTimeout = inFlightTimeout;
+        this.staleAfter = staleAfter;
+        this.retention = retention;
+    }
+
+    // Blocking form for synchronous endpoints; a repeat waits at most in-flight-timeout for the first
+    public <T> ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<T>> action) {
+        CompletableFuture<ResponseEntity<?>> response =
+                executeAsync(scope, key, request, () -> CompletableFuture.completedFuture(action.get()));
+        try {
+            return response.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+        }
+    }
+
+    // Without a key the action simply runs. The scope keeps keys of different endpoints apart and
+    // request is what the key must keep meaning (path variables, parameters and body).
+    public <T> CompletableFuture<ResponseEntity<?>> executeAsync(String scope, String key, Object request,
+                                                                 Supplier<CompletableFuture<ResponseEntity<T>>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get().thenApply(response -> response);
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        String requestHash = fingerprint(request);
+        String cacheKey = scope + ":" + key;
+
+        Optional<IdempotencyRecord> done = completed.get(cacheKey,
+                k -> idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key).filter(IdempotencyRecord::isCompleted));
+        if (done.isPresent()) {
+            return CompletableFuture.completedFuture(replay(done.get(), requestHash));
+        }
+
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return running.thenApply(record -> replay(record, requestHash));
+        }
+
+        IdempotencyRecord claimed;
+        try {
+            claimed = claim(scope, key, requestHash);
+        } catch (RuntimeException e) {
+            inFlight.remove(cacheKey, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        if (claimed == null || claimed.isCompleted()) {
+            // Finished meanwhile, or still running on another instance
+            IdempotencyRecord outcome = claimed != null ? claimed : pendingElsewhere(scope, key, requestHash);
+            inFlight.remove(cacheKey, mine);
+            mine.complete(outcome);
+            return CompletableFuture.completedFuture(claimed != null ? replay(claimed, requestHash) : inProgress());
+        }
+
+        CompletableFuture<ResponseEntity<T>> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.handle((response, failure) -> {
+            try {
+                if (failure != null) {
+                    throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+                }
+                IdempotencyRecord outcome = record(claimed, response);
+                if (isFinal(response.getStatusCode().value())) {
+                    store(cacheKey, outcome);
+                } else {
+                    // Conflicts, throttling and server errors are worth retrying, so the key is freed
+                    release(claimed);
+                }
+                mine.complete(outcome);
+                return response;
+            } catch (RuntimeException e) {
+                // The action failed or its response cannot be recorded; waiters fail with it
+                release(claimed);
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(cacheKey, mine);
+            }
+        });
+    }
+
+    /**
+     * Whether an exception is one the services throw for a request that can never succeed as sent
+     * (plain RuntimeException, IllegalArgumentException, IllegalStateException). Controllers answer
+     * these with 400; anything else, such as a database failure, should surface as a server error.
+     */
+    public static boolean isValidationFailure(Throwable failure) {
+        return failure.getClass() == RuntimeException.class
+                || failure instanceof IllegalArgumentException
+                || failure instanceof IllegalStateException;
+    }
+
+    @Scheduled(cron = "${idempotency.purge.cron:0 15 4 * * *}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = idempotencyRecordRepository.findIdsCreatedBefore(cutoff, PageRequest.of(0, PURGE_CHUNK_SIZE));
+            if (!ids.isEmpty()) {
+                List<Long> chunk = ids;
+                transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteAllByIdInBatch(chunk));
+                purged += ids.size();
+            }
+        } while (ids.size() == PURGE_CHUNK_SIZE);
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys created before {}", purged, cutoff);
+        }
+    }
+
+    // Inserts the pending row that makes this instance the key's owner. Returns the completed
+    // record if the key already finished, or null if another execution holds it and is not stale.
+    private IdempotencyRecord claim(String scope, String key, String requestHash) {
+        try {
+            return transactionTemplate.execute(status ->
+                    idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(scope, key, requestHash)));
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord existing = idempotencyRecordRepository.findByScopeAndIdempotencyKey(scope, key)
+                    .orElseThrow(() -> e);
+            if (existing.isCompleted()) {
+                return existing;
+            }
+            // Only a claim far older than any execution can take is treated as abandoned; a slow run
+            // or one whose outcome failed to store must not be run a second time
+            LocalDateTime now = LocalDateTime.now();
+            Integer taken = transactionTemplate.execute(status ->
+                    idempotencyRecordRepository.takeOver(existing.getId(), requestHash, now.minus(staleAfter), now));
+            if (taken == null || taken == 0) {
+                return null;
+            }
+            existing.setRequestHash(requestHash);
+            return existing;
+        }
+    }
+
+    private IdempotencyRecord record(IdempotencyRecord claimed, ResponseEntity<?> response) {
+        IdempotencyRecord outcome = new IdempotencyRecord(claimed.getScope(), claimed.getIdempotencyKey(), claimed.getRequestHash());
+        outcome.setId(claimed.getId());
+        outcome.setResponseStatus(response.getStatusCode().value());
+        outcome.setCompletedAt(LocalDateTime.now());
+        if (response.getBody() != null) {
+            try {
+                outcome.setResponseBody(objectMapper.writeValueAsString(response.getBody()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Response is not serializable", e);
+            }
+        }
+        return outcome;
+    }
+
+    private void store(String cacheKey, IdempotencyRecord outcome) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.complete(outcome.getId(),
+                    outcome.getResponseStatus(), outcome.getResponseBody(), outcome.getCompletedAt()));
+        } catch (RuntimeException e) {
+            // Repeats on this instance are still answered from memory
+            log.warn("Storing the response for idempotency key {} failed: {}", cacheKey, e.getMessage());
+        }
+        completed.put(cacheKey, outcome);
+    }
+
+    private void release(IdempotencyRecord claimed) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(claimed.getId()));
+        } catch (RuntimeException e) {
+            log.warn("Releasing idempotency key {} failed: {}", claimed.getIdempotencyKey(), e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, String requestHash) {
+        if (!requestHash.equals(record.getRequestHash())) {
+            return ResponseEntity.unprocessableEntity().build();
+        }
+        if (record.getResponseStatus() == HttpStatus.CONFLICT.value() && record.getCompletedAt() == null) {
+            return inProgress();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getResponseStatus())
+                .header(REPLAYED_HEADER, "true");
+        return record.getResponseBody() == null
+                ? builder.build()
+                : builder.contentType(MediaType.APPLICATION_JSON).body(record.getResponseBody());
+    }
+
+    // Stand-in outcome handed to local waiters when the key is running on another instance
+    private static IdempotencyRecord pendingElsewhere(String scope, String key, String requestHash) {
+        IdempotencyRecord record = new IdempotencyRecord(scope, key, requestHash);
+        record.setResponseStatus(HttpStatus.CONFLICT.value());
+        return record;
+    }
+
+    private static ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    private static boolean isFinal(int status) {
+        return (status >= 200 && status < 300) || status == HttpStatus.BAD_REQUEST.value();
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+}
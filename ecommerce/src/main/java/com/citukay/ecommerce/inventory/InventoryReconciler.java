@@ -0,0 +1,103 @@
+package com.citukay.ecommerce.inventory;
+
+import com.citukay.ecommerce.service.ProductService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes units committed by InventoryService back to products.stock_quantity as JDBC batches,
+ * one transaction per batch of products, then republishes those products so caches and
+ * catalog indexes (and the counters themselves) see the stored stock.
+ */
+@Component
+public class InventoryReconciler {
+    private static final Logger log = LoggerFactory.getLogger(InventoryReconciler.class);
+
+    // Not clamped: the counters apply stored stock as a delta, so the row has to reflect every
+    // unit sold even when an admin edit left it below that
+    private static final String DECREMENT_STOCK =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, version = version + 1, updated_at = ? " +
+            "WHERE id = ?";
+
+    private final InventoryService inventoryService;
+    private final ProductService productService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public InventoryReconciler(InventoryService inventoryService, ProductService productService,
+                               JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               @Value("${inventory.reconcile-batch-size:500}") int batchSize) {
+        this.inventoryService = inventoryService;
+        this.productService = productService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reconcile-interval:PT1S}")
+    public synchronized void reconcile() {
+        List<Map.Entry<Long, Long>> pending = new ArrayList<>(inventoryService.unflushed().entrySet());
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> written = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            Map<Long, Long> batch = new LinkedHashMap<>();
+            List<Object[]> rows = new ArrayList<>();
+            for (Map.Entry<Long, Long> line : pending.subList(from, Math.min(from + batchSize, pending.size()))) {
+                batch.put(line.getKey(), line.getValue());
+                rows.add(new Object[]{line.getValue(), now, line.getKey()});
+            }
+            try {
+                List<Long> oversold = transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(DECREMENT_STOCK, rows);
+                    return findOversold(batch.keySet());
+                });
+                inventoryService.flushed(batch);
+                written.addAll(batch.keySet());
+                if (oversold != null && !oversold.isEmpty()) {
+                    log.warn("Stock of products {} is below zero: more units were sold than are stocked", oversold);
+                }
+            } catch (RuntimeException e) {
+                // The units stay unflushed and are retried on the next run
+                log.warn("Reconciling stock of {} products failed: {}", batch.size(), e.getMessage());
+            }
+        }
+        if (!written.isEmpty()) {
+            productService.stockChanged(written);
+        }
+    }
+
+    private List<Long> findOversold(Collection<Long> productIds) {
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE stock_quantity < 0 AND id IN (" + placeholders + ")",
+                Long.class, productIds.toArray());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcile();
+        if (!inventoryService.unflushed().isEmpty()) {
+            log.error("Stock of {} products could not be reconciled on shutdown", inventoryService.unflushed().size());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.citukay.ecommerce.inventory;
+
+import com.citukay.ecommerce.catalog.CatalogListener;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sellable stock per product, kept in memory so checkout never locks a products row.
+ * Counters are seeded from products.stock_quantity on first use. Reservations hold units for a
+ * checkout until they are committed, released, or swept after their TTL. Committed units are
+ * written back to the table by InventoryReconciler. Like the write-behind cart store, this
+ * assumes a single application instance owns the counters.
+ */
+@Service
+public class InventoryService implements CatalogListener {
+    private final ConcurrentHashMap<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final ProductRepository productRepository;
+    private final Duration defaultTtl;
+
+    public InventoryService(ProductRepository productRepository,
+                            @Value("${inventory.reservation.ttl:PT10M}") Duration defaultTtl) {
+        this.productRepository = productRepository;
+        this.defaultTtl = defaultTtl;
+    }
+
+    public Reservation reserve(Map<Long, Integer> quantities) {
+        return reserve(quantities, defaultTtl);
+    }
+
+    // Holds every quantity or none of them; quantities maps product id to units
+    public Reservation reserve(Map<Long, Integer> quantities, Duration ttl) {
+        if (quantities.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to reserve");
+        }
+        Map<Long, Integer> held = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (line.getValue() == null || line.getValue() <= 0) {
+                releaseUnits(held);
+                throw new IllegalArgumentException("Quantities must be positive");
+            }
+            StockCounter counter;
+            try {
+                counter = counter(line.getKey());
+            } catch (RuntimeException e) {
+                releaseUnits(held);
+                throw e;
+            }
+            if (!counter.reserve(line.getValue())) {
+                releaseUnits(held);
+                throw new RuntimeException("Insufficient stock for product: " + line.getKey());
+            }
+            held.put(line.getKey(), line.getValue());
+        }
+
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), held, Instant.now().plus(ttl));
+        reservations.put(reservation.getId(), reservation);
+        return reservation;
+    }
+
+    public Optional<Reservation> getReservation(String reservationId) {
+        return Optional.ofNullable(reservations.get(reservationId));
+    }
+
+    // Takes a held reservation for an order being written; the TTL sweep leaves claimed holds alone
+    public Reservation claim(String reservationId, Map<Long, Integer> quantities) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            throw new RuntimeException("Reservation not found: " + reservationId);
+        }
+        if (!reservation.getQuantities().equals(quantities)) {
+            throw new RuntimeException("Order items do not match reservation " + reservationId);
+        }
+        if (reservation.isExpired(Instant.now())) {
+            release(reservation);
+            throw new RuntimeException("Reservation expired: " + reservationId);
+        }
+        if (!reservation.transition(Reservation.State.HELD, Reservation.State.CLAIMED)) {
+            throw new RuntimeException("Reservation is no longer held: " + reservationId);
+        }
+        return reservation;
+    }
+
+    public void commit(Reservation reservation) {
+        if (!reservation.transition(Reservation.State.CLAIMED, Reservation.State.COMMITTED)
+                && !reservation.transition(Reservation.State.HELD, Reservation.State.COMMITTED)) {
+            throw new RuntimeException("Reservation is no longer held: " + reservation.getId());
+        }
+        for (Map.Entry<Long, Integer> line : reservation.getQuantities().entrySet()) {
+            StockCounter counter = counters.get(line.getKey());
+            if (counter != null) {
+                counter.commit(line.getValue());
+            }
+        }
+        reservations.remove(reservation.getId());
+    }
+
+    // Returns false if the reservation is unknown or already committed/released
+    public boolean release(String reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        return reservation != null && release(reservation);
+    }
+
+    public boolean release(Reservation reservation) {
+        if (!reservation.transition(Reservation.State.HELD, Reservation.State.RELEASED)
+                && !reservation.transition(Reservation.State.CLAIMED, Reservation.State.RELEASED)) {
+            return false;
+        }
+        releaseUnits(reservation.getQuantities());
+        reservations.remove(reservation.getId());
+        return true;
+    }
+
+    // Abandoned checkouts give their units back
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval:PT15S}")
+    public void releaseExpired() {
+        Instant now = Instant.now();
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.getState() == Reservation.State.HELD && reservation.isExpired(now)) {
+                release(reservation);
+            }
+        }
+    }
+
+    public int available(Long productId) {
+        return counter(productId).available();
+    }
+
+    public int reserved(Long productId) {
+        return counter(productId).reserved();
+    }
+
+    // Committed units per product that are not in products.stock_quantity yet
+    public Map<Long, Long> unflushed() {
+        Map<Long, Long> pending = new HashMap<>();
+        for (Map.Entry<Long, StockCounter> counter : counters.entrySet()) {
+            long units = counter.getValue().unflushed();
+            if (units > 0) {
+                pending.put(counter.getKey(), units);
+            }
+        }
+        return pending;
+    }
+
+    // Called by the reconciler after these units were written back and committed
+    public void flushed(Map<Long, Long> units) {
+        for (Map.Entry<Long, Long> line : units.entrySet()) {
+            StockCounter counter = counters.get(line.getKey());
+            if (counter != null) {
+                counter.flushed(line.getValue());
+            }
+        }
+    }
+
+    // Stock edits and reconciled batches come back through here; counters not in use are left
+    // unseeded until a checkout needs them
+    @Override
+    public void productSaved(Product product) {
+        StockCounter counter = counters.get(product.getId());
+        if (counter != null) {
+            counter.resync(product.getStockQuantity() != null ? product.getStockQuantity() : 0);
+        }
+    }
+
+    @Override
+    public void productRemoved(Long productId) {
+        counters.remove(productId);
+    }
+
+    // Seeded outside the map so the query never holds a ConcurrentHashMap bin lock; if two
+    // checkouts race on a cold product, the first counter stored wins
+    private StockCounter counter(Long productId) {
+        StockCounter counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        StockCounter seeded = new StockCounter(productRepository.findStockQuantityById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found: " + productId)));
+        counter = counters.putIfAbsent(productId, seeded);
+        return counter != null ? counter : seeded;
+    }
+
+    private void releaseUnits(Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            StockCounter counter = counters.get(line.getKey());
+            if (counter != null) {
+                counter.release(line.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.citukay.ecommerce.inventory;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Units held for one checkout. A hold either commits (stock is gone), or is released
+ * explicitly or by the TTL sweep (stock comes back). Only one of these happens, because the
+ * state moves with a compare-and-set.
+ */
+public class Reservation {
+    public enum State { HELD, CLAIMED, COMMITTED, RELEASED }
+
+    private final String id;
+    private final Map<Long, Integer> quantities;
+    private final Instant expiresAt;
+    private final AtomicReference<State> state = new AtomicReference<>(State.HELD);
+
+    Reservation(String id, Map<Long, Integer> quantities, Instant expiresAt) {
+        this.id = id;
+        this.quantities = Collections.unmodifiableMap(quantities);
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() { return id; }
+
+    // Product id -> units held
+    public Map<Long, Integer> getQuantities() { return quantities; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+
+    public State getState() { return state.get(); }
+
+    boolean isExpired(Instant now) {
+        return now.isAfter(expiresAt);
+    }
+
+    boolean transition(State from, State to) {
+        return state.compareAndSet(from, to);
+    }
+}
@@ -0,0 +1,102 @@
+package com.citukay.ecommerce.inventory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stock of one product. On-hand and reserved units share a single AtomicLong (high and low 32
+ * bits), so "reserve if enough is left" is one compare-and-set with no lock. Committed units
+ * that have not been written back to products.stock_quantity yet are counted in unflushed.
+ */
+final class StockCounter {
+    private final AtomicLong state;
+    private final LongAdder unflushed = new LongAdder();
+    // products.stock_quantity as last applied to this counter, less units flushed since
+    private long stored;
+
+    StockCounter(int onHand) {
+        this.state = new AtomicLong(pack(onHand, 0));
+        this.stored = onHand;
+    }
+
+    boolean reserve(int quantity) {
+        while (true) {
+            long current = state.get();
+            int onHand = onHand(current);
+            int reserved = reserved(current);
+            if (onHand - reserved < quantity) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(onHand, reserved + quantity))) {
+                return true;
+            }
+        }
+    }
+
+    void release(int quantity) {
+        update(0, -quantity);
+    }
+
+    // The reserved units leave stock for good
+    void commit(int quantity) {
+        update(-quantity, -quantity);
+        unflushed.add(quantity);
+    }
+
+    int onHand() {
+        return onHand(state.get());
+    }
+
+    int reserved() {
+        return reserved(state.get());
+    }
+
+    int available() {
+        long current = state.get();
+        return onHand(current) - reserved(current);
+    }
+
+    long unflushed() {
+        return unflushed.sum();
+    }
+
+    // Called once a reconciliation batch holding these units has committed; on-hand already
+    // counted them when they were committed
+    synchronized void flushed(long quantity) {
+        unflushed.add(-quantity);
+        stored -= quantity;
+    }
+
+    // The stored stock changed (admin edit or reconciliation). Only the difference to the stored
+    // value last seen moves on-hand, through the same CAS as commits, so a commit racing this
+    // call is never overwritten. Reservations are kept.
+    synchronized void resync(int storedStock) {
+        long delta = storedStock - stored;
+        stored = storedStock;
+        if (delta != 0) {
+            update((int) delta, 0);
+        }
+    }
+
+    private void update(int onHandDelta, int reservedDelta) {
+        while (true) {
+            long current = state.get();
+            long next = pack(onHand(current) + onHandDelta, reserved(current) + reservedDelta);
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private static long pack(int onHand, int reserved) {
+        return ((long) onHand << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    private static int onHand(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int reserved(long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,196 @@
+package com.citukay.ecommerce.media;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the resized JPEG variants of uploaded product photos on a small bounded worker
+ * pool, off the request thread. Variants are re-encoded from pixels only, so EXIF/ICC/XMP
+ * metadata in the original never reaches the storefront. When the queue is full the upload
+ * still succeeds and the variant URLs keep serving the original, as they do for images whose
+ * header declares more pixels than uploads.images.max-pixels (those are never decoded).
+ */
+@Service
+public class ImagePipeline {
+    private static final Logger log = LoggerFactory.getLogger(ImagePipeline.class);
+
+    private final ThreadPoolExecutor executor;
+    private final float jpegQuality;
+    private final long maxPixels;
+
+    public ImagePipeline(@Value("${uploads.images.workers:2}") int workers,
+                         @Value("${uploads.images.queue-capacity:100}") int queueCapacity,
+                         @Value("${uploads.images.jpeg-quality:0.8}") float jpegQuality,
+                         @Value("${uploads.images.max-pixels:40000000}") long maxPixels) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-pipeline-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+    }
+
+    // Queues variant generation for a stored original; returns false if the pipeline is saturated
+    public boolean submit(Path original) {
+        try {
+            executor.execute(() -> generateVariants(original));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Image pipeline queue full, serving original for {}", original.getFileName());
+            return false;
+        }
+    }
+
+    void generateVariants(Path original) {
+        try {
+            if (allVariantsExist(original)) {
+                return;
+            }
+            BufferedImage source = decode(original);
+            if (source == null) {
+                return;
+            }
+            Path uploadDir = original.getParent();
+            String filename = original.getFileName().toString();
+            for (ImageVariant variant : ImageVariant.values()) {
+                Path target = uploadDir.resolve(variant.relativePath(filename));
+                if (Files.exists(target)) {
+                    continue;
+                }
+                writeJpeg(resize(source, variant.getMaxEdge()), target);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate variants for {}", original.getFileName(), e);
+        }
+    }
+
+    // Reads the dimensions from the header first, so a small file declaring a huge canvas (a
+    // decompression bomb) is refused before any pixel buffer is allocated
+    private BufferedImage decode(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                log.info("No ImageIO decoder for {}, variants fall back to the original", original.getFileName());
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("{} is {}x{}, above the {} pixel limit; variants fall back to the original",
+                            original.getFileName(), width, height, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static boolean allVariantsExist(Path original) {
+        String filename = original.getFileName().toString();
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (!Files.exists(original.getParent().resolve(variant.relativePath(filename)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Scales so the longest edge fits maxEdge (never upscaling), halving in steps for quality,
+    // and flattens transparency onto white since JPEG has no alpha channel
+    static BufferedImage resize(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        int currentWidth = width;
+        int currentHeight = height;
+        while (currentWidth / 2 >= targetWidth && currentHeight / 2 >= targetHeight) {
+            currentWidth /= 2;
+            currentHeight /= 2;
+            current = draw(current, currentWidth, currentHeight);
+        }
+        return draw(current, targetWidth, targetHeight);
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Writes through a temp file and an atomic move so a half-written variant is never served
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(output);
+            // null metadata: only pixels are written
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,59 @@
+package com.citukay.ecommerce.media;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resized renditions generated for every uploaded product photo. A variant of
+ * /uploads/products/abc.png is served from /uploads/products/variants/grid/abc.png.jpg;
+ * until it has been generated, that URL falls back to the original file.
+ */
+public enum ImageVariant {
+    THUMBNAIL("thumbnail", 160),
+    GRID("grid", 480),
+    DETAIL("detail", 1200);
+
+    public static final String UPLOAD_URL_PREFIX = "/uploads/products/";
+    public static final String VARIANT_DIR = "variants";
+
+    private final String key;
+    private final int maxEdge;
+
+    ImageVariant(String key, int maxEdge) {
+        this.key = key;
+        this.maxEdge = maxEdge;
+    }
+
+    public String getKey() { return key; }
+
+    public int getMaxEdge() { return maxEdge; }
+
+    // Path of this variant relative to the products upload directory, e.g. variants/grid/abc.png.jpg
+    public String relativePath(String originalFilename) {
+        return VARIANT_DIR + "/" + key + "/" + originalFilename + ".jpg";
+    }
+
+    /**
+     * Variant URLs for an image URL, keyed by variant name. Returns null for images that were
+     * not uploaded through /api/upload (external URLs, bundled defaults).
+     */
+    public static Map<String, String> urlsFor(String imageUrl) {
+        if (imageUrl == null) {
+            return null;
+        }
+        int prefixAt = imageUrl.indexOf(UPLOAD_URL_PREFIX);
+        if (prefixAt < 0) {
+            return null;
+        }
+        String filename = imageUrl.substring(prefixAt + UPLOAD_URL_PREFIX.length());
+        if (filename.isEmpty() || filename.contains("/")) {
+            return null;
+        }
+        String base = imageUrl.substring(0, prefixAt + UPLOAD_URL_PREFIX.length());
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (ImageVariant variant : values()) {
+            urls.put(variant.key, base + variant.relativePath(filename));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,106 @@
+package com.citukay.ecommerce.media;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for product uploads. Files are named by the SHA-256 of their bytes,
+ * so uploading the same photo again reuses the stored file, and a stored file never changes
+ * (which is what lets it be served as immutable). The upload is hashed while it is streamed to
+ * disk through a channel transfer, so it is never buffered in memory.
+ */
+@Service
+public class UploadStorage {
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("[a-z0-9]{1,8}");
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private final Path productDir = Paths.get("uploads/products");
+
+    public StoredFile store(MultipartFile file) throws IOException {
+        Files.createDirectories(productDir);
+        Path temp = Files.createTempFile(productDir, "upload-", ".tmp");
+        try {
+            String hash = streamToDisk(file, temp);
+            String filename = hash + extensionOf(file.getOriginalFilename());
+            Path target = productDir.resolve(filename);
+            if (Files.exists(target)) {
+                return new StoredFile(filename, target, true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Another request stored the same content first
+                return new StoredFile(filename, target, true);
+            }
+            return new StoredFile(filename, target, false);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private String streamToDisk(MultipartFile file, Path temp) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+             ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return SAFE_EXTENSION.matcher(extension).matches() ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static class StoredFile {
+        private final String filename;
+        private final Path path;
+        private final boolean deduplicated;
+
+        public StoredFile(String filename, Path path, boolean deduplicated) {
+            this.filename = filename;
+            this.path = path;
+            this.deduplicated = deduplicated;
+        }
+
+        public String getFilename() { return filename; }
+        public Path getPath() { return path; }
+
+        // True when identical content was already stored and no new file was written
+        public boolean isDeduplicated() { return deduplicated; }
+    }
+}
@@ -0,0 +1,22 @@
+package com.citukay.ecommerce.order;
+
+/**
+ * A flash-sale purchase turned away before any database work: the product is sold out or its
+ * admission queue is full.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public enum Reason { SOLD_OUT, QUEUE_FULL }
+
+    private final Reason reason;
+
+    public AdmissionRejectedException(Reason reason, Long productId) {
+        super((reason == Reason.SOLD_OUT ? "Sold out: product " : "Too many pending orders for product ") + productId);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,248 @@
+package com.citukay.ecommerce.order;
+
+import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.inventory.InventoryService;
+import com.citukay.ecommerce.inventory.Reservation;
+import com.citukay.ecommerce.service.OrderService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Front door for order placement. Orders for products in flash-sale mode do not run on the
+ * request thread: they wait in a bounded queue per product, and a single writer thread per
+ * product admits them in batches. A batch holds its stock in memory and writes all its orders
+ * in one transaction. Requests are turned away at once when the product is sold out or its
+ * queue is full. Every other order is placed directly.
+ */
+@Component
+public class FlashSaleAdmission {
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleAdmission.class);
+
+    private final OrderService orderService;
+    private final InventoryService inventoryService;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final ConcurrentHashMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    public FlashSaleAdmission(OrderService orderService, InventoryService inventoryService,
+                              @Value("${flash-sale.product-ids:}") List<Long> productIds,
+                              @Value("${flash-sale.queue-capacity:1000}") int queueCapacity,
+                              @Value("${flash-sale.batch-size:50}") int batchSize) {
+        this.orderService = orderService;
+        this.inventoryService = inventoryService;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        productIds.forEach(this::enable);
+    }
+
+    public CompletableFuture<Order> placeOrder(Long userId, List<OrderService.OrderItemRequest> itemRequests,
+                                               String reservationId) {
+        try {
+            Map<Long, Integer> quantities = OrderService.totalQuantities(itemRequests);
+            Lane lane = laneFor(quantities);
+            if (lane == null) {
+                return CompletableFuture.completedFuture(orderService.createOrder(userId, itemRequests, reservationId));
+            }
+            // Lock-free read of the counter, so a sold-out product costs no queue slot
+            if (reservationId == null && inventoryService.available(lane.productId) < quantities.get(lane.productId)) {
+                throw new AdmissionRejectedException(AdmissionRejectedException.Reason.SOLD_OUT, lane.productId);
+            }
+            Admission admission = new Admission(userId, itemRequests, reservationId, quantities);
+            if (!lane.offer(admission)) {
+                throw new AdmissionRejectedException(AdmissionRejectedException.Reason.QUEUE_FULL, lane.productId);
+            }
+            return admission.result;
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public Set<Long> getProductIds() {
+        return new TreeSet<>(lanes.keySet());
+    }
+
+    public void enable(Long productId) {
+        lanes.computeIfAbsent(productId, id -> {
+            Lane lane = new Lane(id);
+            lane.thread.start();
+            return lane;
+        });
+    }
+
+    // Orders already queued are still admitted; new ones are placed directly again
+    public boolean disable(Long productId) {
+        Lane lane = lanes.remove(productId);
+        if (lane == null) {
+            return false;
+        }
+        lane.closed = true;
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        List<Lane> closing = new ArrayList<>(lanes.values());
+        lanes.clear();
+        for (Lane lane : closing) {
+            lane.closed = true;
+        }
+        for (Lane lane : closing) {
+            lane.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    // An order with several flash-sale products queues behind the lowest product id
+    private Lane laneFor(Map<Long, Integer> quantities) {
+        Lane lane = null;
+        for (Long productId : quantities.keySet()) {
+            Lane candidate = lanes.get(productId);
+            if (candidate != null && (lane == null || productId < lane.productId)) {
+                lane = candidate;
+            }
+        }
+        return lane;
+    }
+
+    private final class Lane implements Runnable {
+        private final Long productId;
+        private final BlockingQueue<Admission> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Thread thread;
+        private volatile boolean closed;
+
+        private Lane(Long productId) {
+            this.productId = productId;
+            this.thread = new Thread(this, "flash-sale-" + productId);
+            this.thread.setDaemon(true);
+        }
+
+        // Checked and offered under the lane's lock, which the writer also takes for its final
+        // drain, so nothing can be queued after the writer has stopped looking
+        private synchronized boolean offer(Admission admission) {
+            return !closed && queue.offer(admission);
+        }
+
+        @Override
+        public void run() {
+            List<Admission> batch = new ArrayList<>(batchSize);
+            while (!closed || !queue.isEmpty()) {
+                try {
+                    Admission first = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    admitSafely(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    batch.clear();
+                }
+            }
+            List<Admission> left = new ArrayList<>();
+            synchronized (this) {
+                queue.drainTo(left);
+            }
+            for (int from = 0; from < left.size(); from += batchSize) {
+                admitSafely(left.subList(from, Math.min(from + batchSize, left.size())));
+            }
+        }
+
+        private void admitSafely(List<Admission> batch) {
+            try {
+                admit(batch);
+            } catch (RuntimeException e) {
+                log.error("Flash-sale batch for product {} failed", productId, e);
+                batch.forEach(admission -> admission.result.completeExceptionally(e));
+            }
+        }
+
+        // Holds stock for each admission in queue order, then writes every admitted order at once
+        private void admit(List<Admission> batch) {
+            List<Admission> admitted = new ArrayList<>(batch.size());
+            for (Admission admission : batch) {
+                try {
+                    if (admission.reservationId == null
+                            && inventoryService.available(productId) < admission.quantities.get(productId)) {
+                        throw new AdmissionRejectedException(AdmissionRejectedException.Reason.SOLD_OUT, productId);
+                    }
+                    admission.order = orderService.prepareOrder(admission.userId, admission.itemRequests, admission.quantities);
+                    admission.reservation = orderService.holdStock(admission.quantities, admission.reservationId);
+                    admitted.add(admission);
+                } catch (RuntimeException e) {
+                    admission.result.completeExceptionally(e);
+                }
+            }
+            if (admitted.isEmpty()) {
+                return;
+            }
+
+            try {
+                orderService.writeOrders(admitted.stream().map(admission -> admission.order).toList());
+            } catch (RuntimeException e) {
+                // One bad order should not fail the rest of the batch
+                log.warn("Writing {} flash-sale orders for product {} failed, retrying them one by one: {}",
+                        admitted.size(), productId, e.getMessage());
+                admitted.forEach(this::writeAlone);
+                return;
+            }
+            admitted.forEach(this::commitAndComplete);
+        }
+
+        private void writeAlone(Admission admission) {
+            try {
+                orderService.writeOrders(List.of(admission.order));
+            } catch (RuntimeException e) {
+                inventoryService.release(admission.reservation);
+                admission.result.completeExceptionally(e);
+                return;
+            }
+            commitAndComplete(admission);
+        }
+
+        // The order is already written, so it is answered as placed even if its reservation can no
+        // longer be committed (e.g. it expired meanwhile); that mismatch is logged for follow-up
+        private void commitAndComplete(Admission admission) {
+            try {
+                inventoryService.commit(admission.reservation);
+            } catch (RuntimeException e) {
+                log.error("Flash-sale order {} was written but reservation {} could not be committed",
+                        admission.order.getOrderNumber(), admission.reservation.getId(), e);
+            }
+            admission.result.complete(admission.order);
+        }
+    }
+
+    private static final class Admission {
+        private final Long userId;
+        private final List<OrderService.OrderItemRequest> itemRequests;
+        private final String reservationId;
+        private final Map<Long, Integer> quantities;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+        private Order order;
+        private Reservation reservation;
+
+        private Admission(Long userId, List<OrderService.OrderItemRequest> itemRequests, String reservationId,
+                          Map<Long, Integer> quantities) {
+            this.userId = userId;
+            this.itemRequests = itemRequests;
+            this.reservationId = reservationId;
+            this.quantities = quantities;
+        }
+    }
+}
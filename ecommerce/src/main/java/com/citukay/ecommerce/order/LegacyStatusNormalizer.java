@@ -0,0 +1,67 @@
+package com.citukay.ecommerce.order;
+
+import com.citukay.ecommerce.entity.OrderStatus;
+import com.citukay.ecommerce.entity.PaymentStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rewrites order and payment statuses stored before the columns were typed ('processing',
+ * 'canceled', lower case) to enum names at startup, so status queries and bulk updates see them.
+ * Values with no known meaning are left untouched and stop startup with the list of them, since
+ * rewriting them to a guess cannot be undone.
+ */
+@Component
+public class LegacyStatusNormalizer implements InitializingBean {
+    private static final Logger log = LoggerFactory.getLogger(LegacyStatusNormalizer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LegacyStatusNormalizer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        normalize("orders", OrderStatus.values(), OrderStatus::fromStored);
+        normalize("payments", PaymentStatus.values(), PaymentStatus::fromStored);
+    }
+
+    private <E extends Enum<E>> void normalize(String table, E[] statuses, Function<String, E> fromStored) {
+        String names = Arrays.stream(statuses).map(s -> "'" + s.name() + "'").collect(Collectors.joining(", "));
+        List<String> legacy;
+        try {
+            legacy = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT status FROM " + table + " WHERE status NOT IN (" + names + ")", String.class);
+        } catch (DataAccessException e) {
+            // Fresh database: Hibernate has not created the table yet
+            return;
+        }
+        List<String> unknown = new ArrayList<>();
+        for (String value : legacy) {
+            E status;
+            try {
+                status = fromStored.apply(value);
+            } catch (IllegalArgumentException e) {
+                unknown.add(value);
+                continue;
+            }
+            int updated = jdbcTemplate.update("UPDATE " + table + " SET status = ? WHERE status = ?", status.name(), value);
+            log.warn("Rewrote status '{}' to {} on {} {}", value, status, updated, table);
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalStateException("Table " + table + " holds statuses with no known meaning " + unknown
+                    + "; map them to one of " + Arrays.toString(statuses) + " before starting");
+        }
+    }
+}
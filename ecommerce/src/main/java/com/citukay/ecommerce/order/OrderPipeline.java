@@ -0,0 +1,217 @@
+package com.citukay.ecommerce.order;
+
+import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.inventory.InventoryService;
+import com.citukay.ecommerce.inventory.Reservation;
+import com.citukay.ecommerce.service.OrderService;
+import com.citukay.ecommerce.service.PaymentService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accepted-then-processed order placement. submit only checks the request's shape and records
+ * the order number; a bounded worker pool then runs validation, stock, persistence and the
+ * payment handoff, publishing each stage to anyone following the order over SSE. Progress of
+ * finished orders is kept for the retention period so late subscribers still see the outcome.
+ */
+@Service
+public class OrderPipeline {
+    private static final Logger log = LoggerFactory.getLogger(OrderPipeline.class);
+
+    private final OrderService orderService;
+    private final InventoryService inventoryService;
+    private final PaymentService paymentService;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final long sseTimeoutMillis;
+    private final ConcurrentHashMap<String, Tracked> orders = new ConcurrentHashMap<>();
+
+    public OrderPipeline(OrderService orderService, InventoryService inventoryService, PaymentService paymentService,
+                         @Value("${orders.pipeline.workers:4}") int workers,
+                         @Value("${orders.pipeline.queue-capacity:1000}") int queueCapacity,
+                         @Value("${orders.pipeline.retention:PT10M}") Duration retention,
+                         @Value("${orders.pipeline.sse-timeout:PT5M}") Duration sseTimeout) {
+        this.orderService = orderService;
+        this.inventoryService = inventoryService;
+        this.paymentService = paymentService;
+        this.retention = retention;
+        this.sseTimeoutMillis = sseTimeout.toMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-pipeline-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Throws RejectedExecutionException when the pipeline is saturated
+    public OrderProgress submit(Long userId, List<OrderService.OrderItemRequest> itemRequests,
+                                String reservationId, String paymentMethod) {
+        Map<Long, Integer> quantities = OrderService.totalQuantities(itemRequests);
+        String orderNumber = orderService.generateOrderNumber();
+        Tracked tracked = new Tracked(new OrderProgress(orderNumber, OrderProgress.Stage.ACCEPTED, null, null));
+        orders.put(orderNumber, tracked);
+        try {
+            executor.execute(new OrderTask(tracked,
+                    () -> process(tracked, userId, itemRequests, quantities, reservationId, paymentMethod)));
+        } catch (RuntimeException e) {
+            orders.remove(orderNumber);
+            throw e;
+        }
+        return tracked.progress;
+    }
+
+    public Optional<OrderProgress> getProgress(String orderNumber) {
+        return Optional.ofNullable(orders.get(orderNumber)).map(tracked -> tracked.progress);
+    }
+
+    // Sends the current stage at once, then every change; completes after a terminal stage
+    public Optional<SseEmitter> follow(String orderNumber) {
+        Tracked tracked = orders.get(orderNumber);
+        if (tracked == null) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        synchronized (tracked) {
+            if (send(emitter, tracked.progress) && !tracked.progress.getStage().isTerminal()) {
+                tracked.emitters.add(emitter);
+                emitter.onCompletion(() -> tracked.emitters.remove(emitter));
+                emitter.onTimeout(() -> tracked.emitters.remove(emitter));
+            } else {
+                emitter.complete();
+            }
+        }
+        return Optional.of(emitter);
+    }
+
+    private void process(Tracked tracked, Long userId, List<OrderService.OrderItemRequest> itemRequests,
+                         Map<Long, Integer> quantities, String reservationId, String paymentMethod) {
+        String orderNumber = tracked.progress.getOrderNumber();
+        Reservation reservation = null;
+        boolean committed = false;
+        try {
+            Order order = orderService.prepareOrder(userId, itemRequests, quantities, orderNumber);
+            publish(tracked, OrderProgress.Stage.VALIDATED, null, null);
+
+            reservation = orderService.holdStock(quantities, reservationId);
+            publish(tracked, OrderProgress.Stage.STOCK_RESERVED, null, null);
+
+            orderService.writeOrders(List.of(order));
+            inventoryService.commit(reservation);
+            committed = true;
+            publish(tracked, OrderProgress.Stage.PERSISTED, order.getId(), null);
+
+            if (paymentMethod != null) {
+                try {
+                    paymentService.createPayment(order.getId(), paymentMethod);
+                } catch (RuntimeException e) {
+                    log.info("Payment for order {} failed: {}", orderNumber, e.getMessage());
+                    publish(tracked, OrderProgress.Stage.PAYMENT_FAILED, order.getId(), e.getMessage());
+                    return;
+                }
+            }
+            publish(tracked, OrderProgress.Stage.COMPLETED, order.getId(), null);
+        } catch (RuntimeException e) {
+            if (reservation != null && !committed) {
+                inventoryService.release(reservation);
+            }
+            log.info("Order {} failed: {}", orderNumber, e.getMessage());
+            publish(tracked, OrderProgress.Stage.FAILED, tracked.progress.getOrderId(), e.getMessage());
+        }
+    }
+
+    private void publish(Tracked tracked, OrderProgress.Stage stage, Long orderId, String message) {
+        synchronized (tracked) {
+            tracked.progress = new OrderProgress(tracked.progress.getOrderNumber(), stage, orderId, message);
+            for (SseEmitter emitter : tracked.emitters) {
+                if (!send(emitter, tracked.progress)) {
+                    tracked.emitters.remove(emitter);
+                } else if (stage.isTerminal()) {
+                    emitter.complete();
+                }
+            }
+            if (stage.isTerminal()) {
+                tracked.emitters.clear();
+            }
+        }
+    }
+
+    private static boolean send(SseEmitter emitter, OrderProgress progress) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(progress));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the order carries on regardless
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "PT1M")
+    public void forgetFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        orders.values().removeIf(tracked -> tracked.progress.getStage().isTerminal()
+                && tracked.progress.getUpdatedAt().isBefore(cutoff));
+    }
+
+    // Queued orders keep running for a grace period; any still not started after it are marked
+    // FAILED, so a client that was told 202 learns to place them again instead of waiting
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            return;
+        }
+        List<Runnable> unstarted = executor.shutdownNow();
+        log.warn("{} accepted orders were not processed before shutdown", unstarted.size());
+        for (Runnable task : unstarted) {
+            publish(((OrderTask) task).tracked, OrderProgress.Stage.FAILED, null,
+                    "The server shut down before the order was processed");
+        }
+    }
+
+    private static final class OrderTask implements Runnable {
+        private final Tracked tracked;
+        private final Runnable work;
+
+        private OrderTask(Tracked tracked, Runnable work) {
+            this.tracked = tracked;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+
+    private static final class Tracked {
+        private volatile OrderProgress progress;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        private Tracked(OrderProgress progress) {
+            this.progress = progress;
+        }
+    }
+}
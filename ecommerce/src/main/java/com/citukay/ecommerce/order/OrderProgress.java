@@ -0,0 +1,44 @@
+package com.citukay.ecommerce.order;
+
+import java.time.Instant;
+
+/**
+ * Where an accepted order is in the processing pipeline. Snapshots are immutable; each stage
+ * change publishes a new one.
+ */
+public class OrderProgress {
+    // PAYMENT_FAILED: the order is placed and its stock taken, only the payment did not go
+    // through, so the client must pay for it rather than order again
+    public enum Stage {
+        ACCEPTED, VALIDATED, STOCK_RESERVED, PERSISTED, COMPLETED, PAYMENT_FAILED, FAILED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == PAYMENT_FAILED || this == FAILED;
+        }
+    }
+
+    private final String orderNumber;
+    private final Stage stage;
+    private final Long orderId;
+    private final String message;
+    private final Instant updatedAt;
+
+    OrderProgress(String orderNumber, Stage stage, Long orderId, String message) {
+        this.orderNumber = orderNumber;
+        this.stage = stage;
+        this.orderId = orderId;
+        this.message = message;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getOrderNumber() { return orderNumber; }
+    public Stage getStage() { return stage; }
+
+    // Set once the order is persisted
+    public Long getOrderId() { return orderId; }
+
+    // Why the order or its payment failed, or null
+    public String getMessage() { return message; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+}
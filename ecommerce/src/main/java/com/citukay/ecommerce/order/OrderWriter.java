@@ -0,0 +1,75 @@
+package com.citukay.ecommerce.order;
+
+import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.entity.OrderItem;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC writes for the checkout path. insert expects to run inside the caller's transaction so
+ * the order and its lines commit together.
+ */
+@Component
+public class OrderWriter {
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (order_number, order_date, total_amount, status, user_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM =
+            "INSERT INTO order_items (order_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Inserts the order row and then its lines as one batch; the generated ids are set on the
+    // order and its items, which stay plain objects outside the persistence context
+    public void insert(Order order) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, order.getOrderNumber());
+            statement.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
+            statement.setBigDecimal(3, order.getTotalAmount());
+            statement.setString(4, order.getStatus().name());
+            statement.setLong(5, order.getUser().getId());
+            return statement;
+        }, keyHolder);
+        order.setId(keyHolder.getKeyAs(Long.class));
+        insertItems(order.getId(), order.getOrderItems());
+    }
+
+    private void insertItems(Long orderId, List<OrderItem> items) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ITEM, Statement.RETURN_GENERATED_KEYS)) {
+                for (OrderItem item : items) {
+                    statement.setLong(1, orderId);
+                    statement.setLong(2, item.getProduct().getId());
+                    statement.setInt(3, item.getQuantity());
+                    statement.setBigDecimal(4, item.getUnitPrice());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (OrderItem item : items) {
+                        if (!keys.next()) {
+                            throw new SQLException("Missing generated key for order item");
+                        }
+                        item.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
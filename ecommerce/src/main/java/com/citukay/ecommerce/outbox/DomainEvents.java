@@ -0,0 +1,68 @@
+package com.citukay.ecommerce.outbox;
+
+import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.entity.OrderItem;
+import com.citukay.ecommerce.entity.OrderStatus;
+import com.citukay.ecommerce.entity.Payment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Event names and payloads published through the outbox; payloads are plain maps serialized to JSON
+public final class DomainEvents {
+    public static final String ORDER = "Order";
+    public static final String PAYMENT = "Payment";
+
+    public static final String ORDER_PLACED = "OrderPlaced";
+    public static final String ORDER_STATUS_CHANGED = "OrderStatusChanged";
+    public static final String PAYMENT_COMPLETED = "PaymentCompleted";
+
+    private DomainEvents() {}
+
+    public static Map<String, Object> orderPlaced(Order order) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("productId", item.getProduct().getId());
+            line.put("quantity", item.getQuantity());
+            line.put("unitPrice", item.getUnitPrice());
+            items.add(line);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("orderNumber", order.getOrderNumber());
+        payload.put("userId", order.getUser().getId());
+        payload.put("orderDate", order.getOrderDate());
+        payload.put("status", order.getStatus());
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("items", items);
+        return payload;
+    }
+
+    public static Map<String, Object> orderStatusChanged(Order order, OrderStatus previous, OrderStatus status) {
+        return orderStatusChanged(order.getId(), order.getOrderNumber(), previous, status);
+    }
+
+    public static Map<String, Object> orderStatusChanged(Long orderId, String orderNumber,
+                                                         OrderStatus previous, OrderStatus status) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", orderId);
+        payload.put("orderNumber", orderNumber);
+        payload.put("previousStatus", previous);
+        payload.put("status", status);
+        return payload;
+    }
+
+    public static Map<String, Object> paymentCompleted(Payment payment) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("paymentId", payment.getId());
+        payload.put("orderId", payment.getOrder().getId());
+        payload.put("transactionId", payment.getTransactionId());
+        payload.put("amount", payment.getAmount());
+        payload.put("paymentMethod", payment.getPaymentMethod());
+        payload.put("paymentDate", payment.getPaymentDate());
+        return payload;
+    }
+}
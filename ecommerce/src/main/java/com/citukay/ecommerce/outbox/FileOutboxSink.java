@@ -0,0 +1,63 @@
+package com.citukay.ecommerce.outbox;
+
+import com.citukay.ecommerce.entity.OutboxEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Default sink and stand-in for a message broker: appends each event as one NDJSON line to
+ * outbox.file and forces it to disk before the batch counts as delivered.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOutboxSink implements OutboxSink {
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    public FileOutboxSink(ObjectMapper objectMapper, @Value("${outbox.file:outbox/events.ndjson}") Path file) {
+        this.objectMapper = objectMapper;
+        this.file = file.toAbsolutePath();
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(lines)) {
+            generator.setRootValueSeparator(null);
+            for (OutboxEvent event : events) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", event.getId());
+                generator.writeStringField("aggregateType", event.getAggregateType());
+                generator.writeNumberField("aggregateId", event.getAggregateId());
+                generator.writeStringField("eventType", event.getEventType());
+                generator.writeStringField("createdAt", event.getCreatedAt().toString());
+                generator.writeFieldName("payload");
+                generator.writeRawValue(event.getPayload());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.citukay.ecommerce.outbox;
+
+import com.citukay.ecommerce.entity.OutboxEvent;
+import com.citukay.ecommerce.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox into the OutboxSink in id order, a batch at a time, and marks each batch
+ * published only after the sink accepted it. A crash in between redelivers that batch, so
+ * delivery is at least once. Delivered rows are purged after outbox.retention.
+ */
+@Component
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile long lastDeliveryLagMillis;
+    private volatile LocalDateTime lastPublishedAt;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink sink,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.batch-size:500}") int batchSize,
+                       @Value("${outbox.retention:P7D}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval:PT1S}")
+    public synchronized void relay() {
+        while (true) {
+            List<OutboxEvent> batch = outboxEventRepository.findByPublishedAtIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+            try {
+                sink.publish(batch);
+            } catch (Exception e) {
+                // Stop here so later events are not delivered ahead of this batch; retried next run
+                failedBatches.incrementAndGet();
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.countAttempt(ids));
+                log.warn("Publishing {} outbox events failed: {}", batch.size(), e.getMessage());
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markPublished(ids, now));
+            published.addAndGet(batch.size());
+            lastDeliveryLagMillis = Duration.between(batch.get(batch.size() - 1).getCreatedAt(), now).toMillis();
+            lastPublishedAt = now;
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${outbox.purge.cron:0 45 3 * * *}")
+    public void purgePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = outboxEventRepository.findIdsPublishedBefore(cutoff, PageRequest.of(0, batchSize));
+            if (!ids.isEmpty()) {
+                List<Long> chunk = ids;
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteAllByIdInBatch(chunk));
+                purged += ids.size();
+            }
+        } while (ids.size() == batchSize);
+        if (purged > 0) {
+            log.info("Purged {} outbox events published before {}", purged, cutoff);
+        }
+    }
+
+    // Pending backlog and how far behind delivery is; oldestPendingAgeMillis is the current lag
+    public Stats stats() {
+        long pending = outboxEventRepository.countByPublishedAtIsNull();
+        long oldestPendingAge = outboxEventRepository.findFirstByPublishedAtIsNullOrderByIdAsc()
+                .map(event -> Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis())
+                .orElse(0L);
+        return new Stats(pending, oldestPendingAge, published.get(), failedBatches.get(),
+                lastDeliveryLagMillis, lastPublishedAt);
+    }
+
+    public static class Stats {
+        private final long pending;
+        private final long oldestPendingAgeMillis;
+        private final long published;
+        private final long failedBatches;
+        private final long lastDeliveryLagMillis;
+        private final LocalDateTime lastPublishedAt;
+
+        public Stats(long pending, long oldestPendingAgeMillis, long published, long failedBatches,
+                     long lastDeliveryLagMillis, LocalDateTime lastPublishedAt) {
+            this.pending = pending;
+            this.oldestPendingAgeMillis = oldestPendingAgeMillis;
+            this.published = published;
+            this.failedBatches = failedBatches;
+            this.lastDeliveryLagMillis = lastDeliveryLagMillis;
+            this.lastPublishedAt = lastPublishedAt;
+        }
+
+        public long getPending() { return pending; }
+        public long getOldestPendingAgeMillis() { return oldestPendingAgeMillis; }
+        public long getPublished() { return published; }
+        public long getFailedBatches() { return failedBatches; }
+        public long getLastDeliveryLagMillis() { return lastDeliveryLagMillis; }
+        public LocalDateTime getLastPublishedAt() { return lastPublishedAt; }
+    }
+}
@@ -0,0 +1,15 @@
+package com.citukay.ecommerce.outbox;
+
+import com.citukay.ecommerce.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Where OutboxRelay delivers events, oldest first. Delivery is at least once: an event can be
+ * handed over again after a crash or a failed batch, so consumers should dedupe on its id.
+ */
+public interface OutboxSink {
+
+    // Throwing leaves the whole batch pending; it is retried on the next relay run
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,60 @@
+package com.citukay.ecommerce.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends domain events to the outbox table. It only runs inside the caller's transaction, so an
+ * event is stored exactly when the change it describes commits and vanishes with a rollback.
+ */
+@Component
+public class OutboxWriter {
+    private static final String INSERT_EVENT =
+            "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at, attempts) " +
+            "VALUES (?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public void append(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        appendAll(aggregateType, eventType, Map.of(aggregateId, payload));
+    }
+
+    // One JDBC batch for many events of the same type, keyed by aggregate id
+    public void appendAll(String aggregateType, String eventType, Map<Long, ?> payloads) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be written in the transaction of their change");
+        }
+        if (payloads.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(payloads.size());
+        for (Map.Entry<Long, ?> payload : payloads.entrySet()) {
+            rows.add(new Object[]{aggregateType, payload.getKey(), eventType, toJson(payload.getValue()), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event payload is not serializable", e);
+        }
+    }
+}
@@ -2,7 +2,12 @@ package com.citukay.ecommerce.repository;
 
 import com.citukay.ecommerce.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +16,42 @@ public interface CartItemRepository extends JpaRepository<CartItem,Long> {
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
     void deleteByCartIdAndProductId(Long cartId, Long productId);
 
+    // Insert-or-increment in one statement, relying on uk_cart_items_cart_product; an existing
+    // line keeps its captured unit price
+    @Modifying
+    @Query(value = "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price) " +
+                   "VALUES (:cartId, :productId, :quantity, :unitPrice) " +
+                   "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)", nativeQuery = true)
+    int upsertQuantity(Long cartId, Long productId, int quantity, BigDecimal unitPrice);
+
+    // Single-statement delete of every line in a cart
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int deleteAllInCart(Long cartId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN " +
+           "(SELECT c.id FROM Cart c WHERE c.id IN :cartIds AND (c.updatedAt < :cutoff OR c.updatedAt IS NULL))")
+    int deleteInCartsUntouchedSince(Collection<Long> cartIds, LocalDateTime cutoff);
+
+    // Carts holding a line whose captured price no longer matches the catalog
+    @Query("SELECT DISTINCT ci.cart.id FROM CartItem ci " +
+           "WHERE ci.unitPrice IS NULL OR ci.unitPrice <> (SELECT p.price FROM Product p WHERE p = ci.product)")
+    List<Long> findCartIdsWithStalePrices();
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.unitPrice = (SELECT p.price FROM Product p WHERE p = ci.product) " +
+           "WHERE ci.cart.id IN :cartIds " +
+           "AND (ci.unitPrice IS NULL OR ci.unitPrice <> (SELECT p.price FROM Product p WHERE p = ci.product))")
+    int repriceItems(List<Long> cartIds);
+
+    // Lines stored before unit_price existed
+    @Query("SELECT DISTINCT ci.cart.id FROM CartItem ci WHERE ci.unitPrice IS NULL")
+    List<Long> findCartIdsWithoutUnitPrice();
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.unitPrice = (SELECT p.price FROM Product p WHERE p = ci.product) " +
+           "WHERE ci.cart.id IN :cartIds AND ci.unitPrice IS NULL")
+    int backfillUnitPrices(List<Long> cartIds);
+
 }
@@ -1,13 +1,55 @@
 package com.citukay.ecommerce.repository;
 
 import com.citukay.ecommerce.entity.Cart;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart,Long> {
 
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product", "cartItems.product.category"})
     @Query("SELECT c FROM Cart c WHERE c.user.id = :userId")
     Optional<Cart> findByUserId(Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(Long userId);
+
+    // Takes the cart's row lock before its lines are touched, so concurrent adds to one cart queue
+    // here instead of deadlocking on the lines' foreign key checks
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.updatedAt = :now WHERE c.id = :cartId")
+    int touch(Long cartId, LocalDateTime now);
+
+    // Adds quantity units of the line's captured price to the total
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cart c SET c.totalAmount = COALESCE(c.totalAmount, 0) + :quantity * " +
+           "(SELECT ci.unitPrice FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.product.id = :productId) " +
+           "WHERE c.id = :cartId")
+    int addToTotal(Long cartId, Long productId, int quantity);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.totalAmount = 0, c.version = c.version + 1, c.updatedAt = :now WHERE c.id = :cartId")
+    int resetTotal(Long cartId, LocalDateTime now);
+
+    // Carts not modified since the cutoff (served by idx_carts_updated_at)
+    @Query("SELECT c.id FROM Cart c WHERE c.updatedAt < :cutoff OR c.updatedAt IS NULL")
+    List<Long> findIdsUntouchedSince(LocalDateTime cutoff, Pageable pageable);
+
+    // Re-checks the cutoff so a cart touched since it was selected survives
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id IN :cartIds AND (c.updatedAt < :cutoff OR c.updatedAt IS NULL)")
+    int deleteUntouchedSince(Collection<Long> cartIds, LocalDateTime cutoff);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.totalAmount = " +
+           "(SELECT COALESCE(SUM(ci.unitPrice * ci.quantity), 0) FROM CartItem ci WHERE ci.cart = c) " +
+           "WHERE c.id IN :cartIds")
+    int recalculateTotals(List<Long> cartIds);
 }
@@ -0,0 +1,29 @@
+package com.citukay.ecommerce.repository;
+
+import com.citukay.ecommerce.entity.IdempotencyRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByScopeAndIdempotencyKey(String scope, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.responseBody = :body, r.completedAt = :completedAt " +
+            "WHERE r.id = :id")
+    int complete(Long id, Integer status, String body, LocalDateTime completedAt);
+
+    // Claims a pending row whose owner has been silent since staleBefore (e.g. it crashed)
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.createdAt = :now, r.requestHash = :requestHash " +
+            "WHERE r.id = :id AND r.responseStatus IS NULL AND r.createdAt < :staleBefore")
+    int takeOver(Long id, String requestHash, LocalDateTime staleBefore, LocalDateTime now);
+
+    @Query("SELECT r.id FROM IdempotencyRecord r WHERE r.createdAt < :cutoff ORDER BY r.id")
+    List<Long> findIdsCreatedBefore(LocalDateTime cutoff, Pageable pageable);
+}
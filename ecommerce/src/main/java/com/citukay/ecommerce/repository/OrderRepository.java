@@ -1,13 +1,74 @@
 package com.citukay.ecommerce.repository;
 
+import com.citukay.ecommerce.dto.OrderExportRow;
+import com.citukay.ecommerce.dto.OrderStatusRow;
+import com.citukay.ecommerce.dto.OrderSummary;
 import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order,Long> {
+    // Order.DETAIL_GRAPH loads everything an OrderDto serializes in one statement
+    @Override
+    @EntityGraph(Order.DETAIL_GRAPH)
+    List<Order> findAll();
+
+    @Override
+    @EntityGraph(Order.DETAIL_GRAPH)
+    Optional<Order> findById(Long id);
+
+    @EntityGraph(Order.DETAIL_GRAPH)
     List<Order> findByUserId(Long userId);
+
+    // Newest-first history page read straight into summaries: seeks on (user_id, order_date) and
+    // counts lines with a subquery, so neither the order items nor the products are loaded
+    @Query("SELECT new com.citukay.ecommerce.dto.OrderSummary(o.id, o.orderNumber, o.orderDate, o.status, " +
+            "o.totalAmount, SIZE(o.orderItems)) FROM Order o " +
+            "WHERE o.user.id = :userId " +
+            "AND (o.orderDate < :beforeDate OR (o.orderDate = :beforeDate AND o.id < :beforeId)) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    Slice<OrderSummary> findSummarySlice(Long userId, LocalDateTime beforeDate, Long beforeId, Pageable pageable);
+
+    // Forward-only export cursor; must be consumed inside a transaction. With useCursorFetch on
+    // the MySQL URL the driver fetches 1000 rows at a time instead of the whole result.
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.citukay.ecommerce.dto.OrderExportRow(o.id, o.orderNumber, o.orderDate, o.status, " +
+            "o.totalAmount, u.id, u.email, SIZE(o.orderItems)) FROM Order o LEFT JOIN o.user u " +
+            "WHERE (:from IS NULL OR o.orderDate >= :from) AND (:to IS NULL OR o.orderDate < :to) " +
+            "ORDER BY o.id")
+    Stream<OrderExportRow> streamExportRows(LocalDateTime from, LocalDateTime to);
+
+    @EntityGraph(Order.DETAIL_GRAPH)
     Optional<Order> findByOrderNumber(String orderNumber);
-    List<Order> findByStatus(String status);
+
+    @EntityGraph(Order.DETAIL_GRAPH)
+    List<Order> findByStatus(OrderStatus status);
+
+    // Locks the rows but reads only what the status events need; loading Orders would also fetch
+    // each one's payment, the inverse side of a one-to-one, with a query per order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.citukay.ecommerce.dto.OrderStatusRow(o.id, o.orderNumber, o.status) " +
+            "FROM Order o WHERE o.id IN :ids AND o.status IN :sources")
+    List<OrderStatusRow> findForStatusUpdate(Collection<Long> ids, Collection<OrderStatus> sources);
+
+    // One set-based statement per chunk; rows not in an allowed source status are left alone
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status WHERE o.id IN :ids AND o.status IN :sources")
+    int updateStatus(Collection<Long> ids, Collection<OrderStatus> sources, OrderStatus status);
 }
@@ -1,11 +1,27 @@
 package com.citukay.ecommerce.repository;
 
+import com.citukay.ecommerce.dto.PaymentExportRow;
 import com.citukay.ecommerce.entity.Payment;
+import com.citukay.ecommerce.entity.PaymentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PaymentRepository extends JpaRepository<Payment,Long> {
     List<Payment> findByOrderId(Long orderId);
-    List<Payment> findByStatus(String status);
+    List<Payment> findByStatus(PaymentStatus status);
+
+    // Forward-only export cursor, see OrderRepository.streamExportRows
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.citukay.ecommerce.dto.PaymentExportRow(p.id, p.transactionId, p.paymentDate, p.status, " +
+            "p.paymentMethod, p.amount, o.id, o.orderNumber) FROM Payment p LEFT JOIN p.order o " +
+            "WHERE (:from IS NULL OR p.paymentDate >= :from) AND (:to IS NULL OR p.paymentDate < :to) " +
+            "ORDER BY p.id")
+    Stream<PaymentExportRow> streamExportRows(LocalDateTime from, LocalDateTime to);
 }
@@ -1,17 +1,69 @@
 package com.citukay.ecommerce.repository;
 
 import com.citukay.ecommerce.entity.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product,Long> {
-    List<Product> findByCategoryId(long categoryId);
-    List<Product> findByNameContainingIgnoreCase(String name);
+    // Product.category is LAZY; every finder that returns products to the web layer fetches it
+    // in the same statement so serializing a list never fires one category query per row.
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Product> findById(Long id);
 
-    @Query("SELECT p FROM Product p WHERE p.stockQuantity > 0")
-    List<Product> findAvailableProducts();
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAll();
 
-    List<Product> findByPriceBetween(Double minPrice, Double maxPrice);
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllById(Iterable<Long> ids);
+
+    // Seeds the in-memory inventory counter without loading the entity
+    @Query("SELECT COALESCE(p.stockQuantity, 0) FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockQuantityById(Long id);
+
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
+
+    // Database fallback for the price filter while the in-memory PriceIndex is still loading
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category c " +
+            "WHERE p.price BETWEEN :minPrice AND :maxPrice " +
+            "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+            "AND (:inStockOnly = false OR p.stockQuantity > 0) " +
+            "ORDER BY p.price, p.id")
+    List<Product> filterProducts(BigDecimal minPrice, BigDecimal maxPrice, Long categoryId,
+                                 boolean inStockOnly, Pageable pageable);
+
+    // Keyset (seek) pagination: each query continues strictly after the last row of the
+    // previous slice, so the cost of a page does not grow with how deep the client has scrolled.
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category c " +
+            "WHERE p.id > :afterId " +
+            "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+            "AND (:availableOnly = false OR p.stockQuantity > 0) " +
+            "ORDER BY p.id")
+    Slice<Product> findSliceOrderById(Long afterId, Long categoryId, boolean availableOnly, Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category c " +
+            "WHERE (p.price > :afterPrice OR (p.price = :afterPrice AND p.id > :afterId)) " +
+            "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+            "AND (:availableOnly = false OR p.stockQuantity > 0) " +
+            "ORDER BY p.price, p.id")
+    Slice<Product> findSliceOrderByPrice(BigDecimal afterPrice, Long afterId, Long categoryId,
+                                         boolean availableOnly, Pageable pageable);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category c " +
+            "WHERE (p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) " +
+            "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+            "AND (:availableOnly = false OR p.stockQuantity > 0) " +
+            "ORDER BY p.name, p.id")
+    Slice<Product> findSliceOrderByName(String afterName, Long afterId, Long categoryId,
+                                        boolean availableOnly, Pageable pageable);
 }
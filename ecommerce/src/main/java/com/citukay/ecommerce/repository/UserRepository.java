@@ -1,11 +1,17 @@
 package com.citukay.ecommerce.repository;
 
 import com.citukay.ecommerce.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User,Long> {
+    @Override
+    @EntityGraph(attributePaths = "addresses")
+    List<User> findAll();
+
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
 }
@@ -1,122 +1,82 @@
 package com.citukay.ecommerce.service;
 
+import com.citukay.ecommerce.cart.CartStore;
+import com.citukay.ecommerce.dto.CartOperation;
+import com.citukay.ecommerce.dto.ProductBatch;
 import com.citukay.ecommerce.entity.Cart;
-import com.citukay.ecommerce.entity.CartItem;
 import com.citukay.ecommerce.entity.Product;
-import com.citukay.ecommerce.entity.User;
-import com.citukay.ecommerce.repository.CartItemRepository;
-import com.citukay.ecommerce.repository.CartRepository;
-import com.citukay.ecommerce.repository.ProductRepository;
-import com.citukay.ecommerce.repository.UserRepository;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class CartService {
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final CartStore cartStore;
+    private final ProductService productService;
 
-    public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository,ProductRepository productRepository,UserRepository userRepository) {
-        this.cartRepository = cartRepository;
-        this.cartItemRepository = cartItemRepository;
-        this.productRepository = productRepository;
-        this.userRepository = userRepository;
+    public CartService(CartStore cartStore, ProductService productService) {
+        this.cartStore = cartStore;
+        this.productService = productService;
     }
 
     public Cart getCartByUserId(Long userId) {
-        Optional<Cart> cart = cartRepository.findByUserId(userId);
-        if (cart.isPresent()) {
-            return cart.get();
-        } else {
-            // Find the user first
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-
-            // Create new cart WITH the user
-            Cart newCart = new Cart(user); // This will set the user
-            return cartRepository.save(newCart);
-        }
+        return cartStore.getCart(userId);
     }
 
     public Cart addToCart(Long userId, Long productId, Integer quantity) {
-        Cart cart = getCartByUserId(userId);
-        Product product = productRepository.findById(productId).orElse(null);
+        Product product = productService.getProductById(productId).orElse(null);
         if (product == null) {
             throw new RuntimeException("Product not found");
         }
-
-        Optional<CartItem> existingItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId);
-
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + quantity);
-            cartItemRepository.save(item);
-        } else {
-            CartItem newItem = new CartItem(cart, product, quantity);
-            cart.addCartItem(newItem);
-            cartItemRepository.save(newItem);
-        }
-
-        calculateTotal(cart);
-        return cartRepository.save(cart);
+        return cartStore.addItem(userId, product, quantity);
     }
 
     public Cart updateQuantity(Long userId, Long productId, Integer quantity) {
-        Cart cart = getCartByUserId(userId);
-        Optional<CartItem> itemOpt = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId);
-
-        if (!itemOpt.isPresent()) {
-            throw new RuntimeException("Item not found in cart");
-        }
-
-        CartItem item = itemOpt.get();
-        if (quantity <= 0) {
-            cart.removeCartItem(item);
-            cartItemRepository.delete(item);
-        } else {
-            item.setQuantity(quantity);
-            cartItemRepository.save(item);
-        }
-
-        calculateTotal(cart);
-        return cartRepository.save(cart);
+        return cartStore.updateQuantity(userId, productId, quantity);
     }
 
     public Cart removeFromCart(Long userId, Long productId) {
-        Cart cart = getCartByUserId(userId);
-        Optional<CartItem> itemOpt = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId);
+        return cartStore.removeItem(userId, productId);
+    }
 
-        if (!itemOpt.isPresent()) {
-            throw new RuntimeException("Item not found in cart");
+    // Several line edits in one call: the products for all adds are fetched in one batch and the
+    // store applies the whole list atomically with a single total recalculation
+    public Cart applyOperations(Long userId, List<CartOperation> operations) {
+        for (CartOperation operation : operations) {
+            if (operation.getAction() == null || operation.getProductId() == null) {
+                throw new IllegalArgumentException("Each operation needs an action and a productId");
+            }
+            if (operation.getAction() == CartOperation.Action.ADD && operation.getQuantity() == null) {
+                operation.setQuantity(1);
+            }
+            if (operation.getAction() == CartOperation.Action.UPDATE && operation.getQuantity() == null) {
+                throw new IllegalArgumentException("Update operations need a quantity");
+            }
         }
 
-        CartItem item = itemOpt.get();
-        cart.removeCartItem(item);
-        cartItemRepository.delete(item);
-
-        calculateTotal(cart);
-        return cartRepository.save(cart);
+        List<Long> addedIds = operations.stream()
+                .filter(operation -> operation.getAction() == CartOperation.Action.ADD)
+                .map(CartOperation::getProductId)
+                .toList();
+        Map<Long, Product> products = new HashMap<>();
+        if (!addedIds.isEmpty()) {
+            ProductBatch batch = productService.getProductsByIds(addedIds);
+            if (!batch.getMissingIds().isEmpty()) {
+                throw new RuntimeException("Product not found: " + batch.getMissingIds());
+            }
+            batch.getProducts().forEach(product -> products.put(product.getId(), product));
+        }
+        return cartStore.apply(userId, operations, products);
     }
 
     public void clearCart(Long userId) {
-        Cart cart = getCartByUserId(userId);
-        for (CartItem item : cart.getCartItems()) {
-            cartItemRepository.delete(item);
-        }
-        cart.getCartItems().clear();
-        cart.setTotalAmount(BigDecimal.ZERO);
-        cartRepository.save(cart);
+        cartStore.clear(userId);
     }
 
-    private void calculateTotal(Cart cart) {
-        BigDecimal total = BigDecimal.ZERO;
-        for (CartItem item : cart.getCartItems()) {
-            total = total.add(item.getItemTotal());
-        }
-        cart.setTotalAmount(total);
+    // Cart lines keep the price they were added at; run this after catalog price changes
+    public int repriceCarts() {
+        return cartStore.reprice();
     }
 }
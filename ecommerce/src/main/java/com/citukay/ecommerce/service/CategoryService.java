@@ -1,26 +1,48 @@
 package com.citukay.ecommerce.service;
 
+import com.citukay.ecommerce.cache.BoundedCache;
+import com.citukay.ecommerce.catalog.CatalogVersion;
 import com.citukay.ecommerce.entity.Category;
+import com.citukay.ecommerce.entity.Product;
 import com.citukay.ecommerce.repository.CategoryRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class CategoryService {
+    private static final String ALL_CATEGORIES = "all";
+
     private final CategoryRepository categoryRepository;
+    private final BoundedCache<Long, Category> categoryCache;
+    private final BoundedCache<String, List<Category>> categoryListCache;
+    private final BoundedCache<Long, Product> productCache;
+    private final CatalogVersion catalogVersion;
+    private final ProductService productService;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository,
+                           BoundedCache<Long, Category> categoryCache,
+                           BoundedCache<String, List<Category>> categoryListCache,
+                           BoundedCache<Long, Product> productCache,
+                           CatalogVersion catalogVersion,
+                           ProductService productService) {
         this.categoryRepository = categoryRepository;
+        this.categoryCache = categoryCache;
+        this.categoryListCache = categoryListCache;
+        this.productCache = productCache;
+        this.catalogVersion = catalogVersion;
+        this.productService = productService;
     }
 
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return categoryListCache.get(ALL_CATEGORIES, key -> Optional.of(List.copyOf(categoryRepository.findAll())))
+                .orElseGet(List::of);
     }
 
     public Optional<Category> getCategoryById(Long id) {
-        return categoryRepository.findById(id);
+        return categoryCache.get(id, categoryRepository::findById);
     }
 
     public Optional<Category> getCategoryByName(String name) {
@@ -28,7 +50,10 @@ public class CategoryService {
     }
 
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        categoryListCache.invalidateAll();
+        catalogVersion.categoriesChanged();
+        return savedCategory;
     }
 
     public Category updateCategory(Long id, Category categoryDetails) {
@@ -38,10 +63,24 @@ public class CategoryService {
         category.setName(categoryDetails.getName());
         category.setDescription(categoryDetails.getDescription());
 
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        invalidate(id);
+        productService.categoryChanged(id);
+        return savedCategory;
     }
 
     public void deleteCategory(Long id) {
+        productService.deleteProductsInCategory(id);
         categoryRepository.deleteById(id);
+        invalidate(id);
+    }
+
+    // Cached products embed their category, so drop the ones that point at the changed category too
+    private void invalidate(Long categoryId) {
+        categoryCache.invalidate(categoryId);
+        categoryListCache.invalidateAll();
+        productCache.invalidateIf((productId, product) ->
+                product.getCategory() != null && Objects.equals(product.getCategory().getId(), categoryId));
+        catalogVersion.categoriesChanged();
     }
 }
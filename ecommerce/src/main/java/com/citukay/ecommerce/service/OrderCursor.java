@@ -0,0 +1,60 @@
+package com.citukay.ecommerce.service;
+
+import com.citukay.ecommerce.dto.OrderSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for a user's order history, which is listed newest first. It records the
+ * date and id of the last order a client has seen, so the next slice seeks past it on the
+ * (user_id, order_date) index instead of using OFFSET.
+ */
+public final class OrderCursor {
+
+    // Later than any order date MySQL can store, so the first slice matches every order
+    private static final LocalDateTime FIRST_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final LocalDateTime beforeDate;
+    private final long beforeId;
+
+    private OrderCursor(LocalDateTime beforeDate, long beforeId) {
+        this.beforeDate = beforeDate;
+        this.beforeId = beforeId;
+    }
+
+    public static OrderCursor first() {
+        return new OrderCursor(FIRST_DATE, Long.MAX_VALUE);
+    }
+
+    public static OrderCursor after(OrderSummary order) {
+        return new OrderCursor(order.getOrderDate(), order.getId());
+    }
+
+    // Decodes a token produced by encode(); a null or blank token starts from the newest order.
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return first();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = beforeDate + "|" + beforeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getBeforeDate() { return beforeDate; }
+    public long getBeforeId() { return beforeId; }
+}
@@ -1,40 +1,75 @@
 package com.citukay.ecommerce.service;
 
+import com.citukay.ecommerce.dto.OrderExportRow;
+import com.citukay.ecommerce.dto.OrderStatusRow;
+import com.citukay.ecommerce.dto.OrderSummary;
+import com.citukay.ecommerce.dto.OrderSummarySlice;
+import com.citukay.ecommerce.dto.StatusUpdateResult;
 import com.citukay.ecommerce.entity.Order;
 import com.citukay.ecommerce.entity.OrderItem;
+import com.citukay.ecommerce.entity.OrderStatus;
 import com.citukay.ecommerce.entity.Product;
 import com.citukay.ecommerce.entity.User;
-import com.citukay.ecommerce.repository.OrderItemRepository;
+import com.citukay.ecommerce.id.SnowflakeIdGenerator;
+import com.citukay.ecommerce.inventory.InventoryService;
+import com.citukay.ecommerce.inventory.Reservation;
+import com.citukay.ecommerce.order.OrderWriter;
+import com.citukay.ecommerce.outbox.DomainEvents;
+import com.citukay.ecommerce.outbox.OutboxWriter;
 import com.citukay.ecommerce.repository.OrderRepository;
 import com.citukay.ecommerce.repository.ProductRepository;
 import com.citukay.ecommerce.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_STATUS_UPDATE = 10_000;
+    private static final int STATUS_UPDATE_CHUNK = 500;
+
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final ProductService productService;
+    private final InventoryService inventoryService;
+    private final OrderWriter orderWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final SnowflakeIdGenerator idGenerator;
+    private final OutboxWriter outboxWriter;
 
     public OrderService(OrderRepository orderRepository,
                         UserRepository userRepository,
                         ProductRepository productRepository,
-                        OrderItemRepository orderItemRepository,
-                        ProductService productService) {
+                        InventoryService inventoryService,
+                        OrderWriter orderWriter,
+                        PlatformTransactionManager transactionManager,
+                        SnowflakeIdGenerator idGenerator,
+                        OutboxWriter outboxWriter) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
-        this.orderItemRepository = orderItemRepository;
-        this.productService = productService;
+        this.inventoryService = inventoryService;
+        this.orderWriter = orderWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idGenerator = idGenerator;
+        this.outboxWriter = outboxWriter;
     }
 
     public List<Order> getAllOrders() {
@@ -49,63 +84,167 @@ public class OrderService {
         return orderRepository.findByUserId(userId);
     }
 
-    public List<Order> getOrdersByStatus(String status) {
+    public OrderSummarySlice getOrderSummaries(Long userId, OrderCursor cursor, int size) {
+        Slice<OrderSummary> slice = orderRepository.findSummarySlice(userId, cursor.getBeforeDate(), cursor.getBeforeId(),
+                PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE))));
+
+        List<OrderSummary> items = slice.getContent();
+        String next = null;
+        if (slice.hasNext() && !items.isEmpty()) {
+            next = OrderCursor.after(items.get(items.size() - 1)).encode();
+        }
+        return new OrderSummarySlice(items, next);
+    }
+
+    // Must be consumed, and closed, inside a transaction
+    public Stream<OrderExportRow> streamExportRows(LocalDateTime from, LocalDateTime to) {
+        return orderRepository.streamExportRows(from, to);
+    }
+
+    public List<Order> getOrdersByStatus(OrderStatus status) {
         return orderRepository.findByStatus(status);
     }
 
     public Order createOrder(Long userId, List<OrderItemRequest> itemRequests) {
+        return createOrder(userId, itemRequests, null);
+    }
+
+    // Stock comes from the inventory counters rather than the products rows, through the caller's
+    // reservation or a hold taken here. The units are committed once the order is written.
+    public Order createOrder(Long userId, List<OrderItemRequest> itemRequests, String reservationId) {
+        Map<Long, Integer> quantities = totalQuantities(itemRequests);
+        Order order = prepareOrder(userId, itemRequests, quantities);
+
+        Reservation reservation = holdStock(quantities, reservationId);
+        try {
+            writeOrders(List.of(order));
+        } catch (RuntimeException e) {
+            inventoryService.release(reservation);
+            throw e;
+        }
+        inventoryService.commit(reservation);
+        return order;
+    }
+
+    public Order prepareOrder(Long userId, List<OrderItemRequest> itemRequests, Map<Long, Integer> quantities) {
+        return prepareOrder(userId, itemRequests, quantities, generateOrderNumber());
+    }
+
+    // Builds the order and its lines, loading every product with one findAllById; writes nothing
+    public Order prepareOrder(Long userId, List<OrderItemRequest> itemRequests, Map<Long, Integer> quantities,
+                              String orderNumber) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+
         Order order = new Order();
         order.setUser(user);
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumber);
         order.setOrderDate(LocalDateTime.now());
-        order.setStatus("PENDING");
+        order.setStatus(OrderStatus.PENDING);
 
         BigDecimal totalAmount = BigDecimal.ZERO;
-        List<OrderItem> orderItems = new ArrayList<>();
-
         for (OrderItemRequest itemRequest : itemRequests) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + itemRequest.getProductId()));
-
-            if (product.getStockQuantity() < itemRequest.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
+            Product product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Product not found: " + itemRequest.getProductId());
             }
+            order.addOrderItem(new OrderItem(itemRequest.getQuantity(), product.getPrice(), product));
+            totalAmount = totalAmount.add(product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity())));
+        }
+        order.setTotalAmount(totalAmount);
+        return order;
+    }
 
-            OrderItem orderItem = new OrderItem();
-            orderItem.setProduct(product);
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setUnitPrice(product.getPrice());
-            orderItem.setOrder(order);
-
-            orderItems.add(orderItem);
+    public Reservation holdStock(Map<Long, Integer> quantities, String reservationId) {
+        return reservationId != null
+                ? inventoryService.claim(reservationId, quantities)
+                : inventoryService.reserve(quantities);
+    }
 
-            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            totalAmount = totalAmount.add(itemTotal);
+    // Inserts the orders, their lines and their OrderPlaced events in one transaction
+    public void writeOrders(List<Order> orders) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Object> events = new LinkedHashMap<>();
+            for (Order order : orders) {
+                orderWriter.insert(order);
+                events.put(order.getId(), DomainEvents.orderPlaced(order));
+            }
+            outboxWriter.appendAll(DomainEvents.ORDER, DomainEvents.ORDER_PLACED, events);
+        });
+    }
 
-            // Update stock
-            productService.updateStock(product.getId(), itemRequest.getQuantity());
+    // Quantity per product, so a product listed twice is held and checked once
+    public static Map<Long, Integer> totalQuantities(List<OrderItemRequest> itemRequests) {
+        if (itemRequests == null || itemRequests.isEmpty()) {
+            throw new RuntimeException("Order has no items");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemRequest itemRequest : itemRequests) {
+            if (itemRequest.getProductId() == null || itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
+                throw new RuntimeException("Each item needs a productId and a positive quantity");
+            }
+            quantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
         }
+        return quantities;
+    }
 
-        order.setTotalAmount(totalAmount);
-        Order savedOrder = orderRepository.save(order);
-        orderItemRepository.saveAll(orderItems);
+    public Order updateOrderStatus(Long orderId, OrderStatus status) {
+        return transactionTemplate.execute(tx -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
 
-        return savedOrder;
+            OrderStatus previous = order.getStatus();
+            order.moveTo(status);
+            Order saved = orderRepository.save(order);
+            outboxWriter.append(DomainEvents.ORDER, saved.getId(), DomainEvents.ORDER_STATUS_CHANGED,
+                    DomainEvents.orderStatusChanged(saved, previous, status));
+            return saved;
+        });
     }
 
-    public Order updateOrderStatus(Long orderId, String status) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+    // Moves many orders at once, a chunk per transaction so a large batch never holds row locks
+    // for long. Orders whose current status cannot move to the new one are skipped, not failed.
+    public StatusUpdateResult updateOrderStatuses(Collection<Long> orderIds, OrderStatus status) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        if (ids.size() > MAX_STATUS_UPDATE) {
+            throw new IllegalArgumentException("At most " + MAX_STATUS_UPDATE + " orders per status update");
+        }
+        Set<OrderStatus> sources = OrderStatus.sourcesOf(status);
+        int updated = 0;
+        if (!sources.isEmpty()) {
+            for (int from = 0; from < ids.size(); from += STATUS_UPDATE_CHUNK) {
+                List<Long> chunk = ids.subList(from, Math.min(from + STATUS_UPDATE_CHUNK, ids.size()));
+                Integer rows = transactionTemplate.execute(tx -> updateChunkStatus(chunk, sources, status));
+                updated += rows != null ? rows : 0;
+            }
+        }
+        return new StatusUpdateResult(status, ids.size(), updated);
+    }
 
-        order.setStatus(status);
-        return orderRepository.save(order);
+    // Locks the orders that can make the move, updates them in one statement and records an
+    // OrderStatusChanged event for each; the locked rows still hold their previous status
+    private int updateChunkStatus(List<Long> chunk, Set<OrderStatus> sources, OrderStatus status) {
+        List<OrderStatusRow> orders = orderRepository.findForStatusUpdate(chunk, sources);
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Object> events = new LinkedHashMap<>();
+        for (OrderStatusRow order : orders) {
+            events.put(order.getId(), DomainEvents.orderStatusChanged(
+                    order.getId(), order.getOrderNumber(), order.getStatus(), status));
+        }
+        int rows = orderRepository.updateStatus(events.keySet(), sources, status);
+        outboxWriter.appendAll(DomainEvents.ORDER, DomainEvents.ORDER_STATUS_CHANGED, events);
+        return rows;
     }
 
-    private String generateOrderNumber() {
-        return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    public String generateOrderNumber() {
+        return idGenerator.nextId("ORD-");
     }
 
     // Helper class for order creation
@@ -1,23 +1,40 @@
 package com.citukay.ecommerce.service;
 
+import com.citukay.ecommerce.dto.PaymentExportRow;
 import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.entity.OrderStatus;
 import com.citukay.ecommerce.entity.Payment;
+import com.citukay.ecommerce.entity.PaymentStatus;
+import com.citukay.ecommerce.id.SnowflakeIdGenerator;
+import com.citukay.ecommerce.outbox.DomainEvents;
+import com.citukay.ecommerce.outbox.OutboxWriter;
 import com.citukay.ecommerce.repository.OrderRepository;
 import com.citukay.ecommerce.repository.PaymentRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final SnowflakeIdGenerator idGenerator;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
 
-    public PaymentService(PaymentRepository paymentRepository,OrderRepository orderRepository) {
+    public PaymentService(PaymentRepository paymentRepository,OrderRepository orderRepository,
+                          SnowflakeIdGenerator idGenerator, OutboxWriter outboxWriter,
+                          PlatformTransactionManager transactionManager) {
         this.paymentRepository = paymentRepository;
         this.orderRepository = orderRepository;
+        this.idGenerator = idGenerator;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<Payment> getAllPayments() {
@@ -32,27 +49,41 @@ public class PaymentService {
         return paymentRepository.findByOrderId(orderId);
     }
 
+    // Must be consumed, and closed, inside a transaction
+    public Stream<PaymentExportRow> streamExportRows(LocalDateTime from, LocalDateTime to) {
+        return paymentRepository.streamExportRows(from, to);
+    }
+
+    // The payment, the order confirmation and both events commit together
     public Payment createPayment(Long orderId, String paymentMethod) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-
-        Payment payment = new Payment();
-        payment.setOrder(order);
-        payment.setAmount(order.getTotalAmount());
-        payment.setPaymentDate(LocalDateTime.now());
-        payment.setPaymentMethod(paymentMethod);
-        payment.setStatus("COMPLETED");
-        payment.setTransactionId(generateTransactionId());
-
-        // Update order status
-        order.setStatus("CONFIRMED");
-        orderRepository.save(order);
-
-        return paymentRepository.save(payment);
+        return transactionTemplate.execute(status -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
+
+            Payment payment = new Payment();
+            payment.setOrder(order);
+            payment.setAmount(order.getTotalAmount());
+            payment.setPaymentDate(LocalDateTime.now());
+            payment.setPaymentMethod(paymentMethod);
+            payment.setStatus(PaymentStatus.COMPLETED);
+            payment.setTransactionId(generateTransactionId());
+
+            // Update order status
+            OrderStatus previous = order.getStatus();
+            order.moveTo(OrderStatus.CONFIRMED);
+            orderRepository.save(order);
+
+            Payment saved = paymentRepository.save(payment);
+            outboxWriter.append(DomainEvents.ORDER, order.getId(), DomainEvents.ORDER_STATUS_CHANGED,
+                    DomainEvents.orderStatusChanged(order, previous, OrderStatus.CONFIRMED));
+            outboxWriter.append(DomainEvents.PAYMENT, saved.getId(), DomainEvents.PAYMENT_COMPLETED,
+                    DomainEvents.paymentCompleted(saved));
+            return saved;
+        });
     }
 
     private String generateTransactionId() {
-        return "TXN-" + System.currentTimeMillis();
+        return idGenerator.nextId("TXN-");
     }
 
 }
@@ -0,0 +1,81 @@
+package com.citukay.ecommerce.service;
+
+import com.citukay.ecommerce.entity.Product;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Opaque keyset cursor for the product catalog. It records the sort column value and id of the
+ * last product a client has seen, so the next slice can seek past it instead of using OFFSET.
+ */
+public final class ProductCursor {
+
+    public enum Sort { ID, PRICE, NAME }
+
+    private final Sort sort;
+    private final long lastId;
+    private final String lastKey;
+
+    private ProductCursor(Sort sort, long lastId, String lastKey) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastKey = lastKey;
+    }
+
+    // Cursor positioned before the first product. Prices are never negative and names never
+    // sort before the empty string, so these sentinels match every row.
+    public static ProductCursor first(Sort sort) {
+        return new ProductCursor(sort, 0L, sort == Sort.PRICE ? "-1" : "");
+    }
+
+    public static ProductCursor after(Sort sort, Product product) {
+        switch (sort) {
+            case PRICE: return new ProductCursor(sort, product.getId(), product.getPrice().toPlainString());
+            case NAME: return new ProductCursor(sort, product.getId(), product.getName());
+            default: return new ProductCursor(sort, product.getId(), "");
+        }
+    }
+
+    public static Sort parseSort(String value) {
+        try {
+            return Sort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown sort: " + value);
+        }
+    }
+
+    // Decodes a token produced by encode(); a null or blank token starts from the beginning.
+    public static ProductCursor decode(String token, Sort sort) {
+        if (token == null || token.isBlank()) {
+            return first(sort);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || Sort.valueOf(parts[0]) != sort) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            long lastId = Long.parseLong(parts[1]);
+            if (sort == Sort.PRICE) {
+                new BigDecimal(parts[2]);
+            }
+            return new ProductCursor(sort, lastId, parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + lastId + "|" + lastKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Sort getSort() { return sort; }
+    public long getLastId() { return lastId; }
+    public String getLastKey() { return lastKey; }
+
+    public BigDecimal getLastPrice() { return new BigDecimal(lastKey); }
+}
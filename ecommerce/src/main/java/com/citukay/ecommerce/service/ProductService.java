@@ -1,45 +1,160 @@
 package com.citukay.ecommerce.service;
 
+import com.citukay.ecommerce.cache.BoundedCache;
+import com.citukay.ecommerce.catalog.CatalogListener;
+import com.citukay.ecommerce.catalog.FacetIndex;
+import com.citukay.ecommerce.catalog.PriceIndex;
+import com.citukay.ecommerce.catalog.Prices;
+import com.citukay.ecommerce.catalog.ProductSearchIndex;
+import com.citukay.ecommerce.dto.FacetResult;
+import com.citukay.ecommerce.dto.ProductBatch;
+import com.citukay.ecommerce.dto.ProductSlice;
+import com.citukay.ecommerce.entity.Category;
 import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.repository.CategoryRepository;
 import com.citukay.ecommerce.repository.ProductRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class ProductService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_BATCH_SIZE = 200;
+    public static final List<BigDecimal> DEFAULT_PRICE_BUCKETS = List.of(
+            BigDecimal.ZERO, BigDecimal.valueOf(100), BigDecimal.valueOf(500),
+            BigDecimal.valueOf(1000), BigDecimal.valueOf(5000));
+
     private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductSearchIndex searchIndex;
+    private final PriceIndex priceIndex;
+    private final FacetIndex facetIndex;
+    private final List<CatalogListener> catalogListeners;
+    private final BoundedCache<Long, Product> productCache;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository,
+                          CategoryRepository categoryRepository,
+                          ProductSearchIndex searchIndex,
+                          PriceIndex priceIndex,
+                          FacetIndex facetIndex,
+                          List<CatalogListener> catalogListeners,
+                          BoundedCache<Long, Product> productCache) {
         this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.searchIndex = searchIndex;
+        this.priceIndex = priceIndex;
+        this.facetIndex = facetIndex;
+        this.catalogListeners = catalogListeners;
+        this.productCache = productCache;
     }
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
-    }
 
-    public List<Product> getAvailableProducts() {
-        return productRepository.findAvailableProducts();
+    public ProductSlice getProductSlice(ProductCursor cursor, int size, Long categoryId, boolean availableOnly) {
+        Pageable limit = PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        Slice<Product> slice;
+        switch (cursor.getSort()) {
+            case PRICE:
+                slice = productRepository.findSliceOrderByPrice(cursor.getLastPrice(), cursor.getLastId(),
+                        categoryId, availableOnly, limit);
+                break;
+            case NAME:
+                slice = productRepository.findSliceOrderByName(cursor.getLastKey(), cursor.getLastId(),
+                        categoryId, availableOnly, limit);
+                break;
+            default:
+                slice = productRepository.findSliceOrderById(cursor.getLastId(), categoryId, availableOnly, limit);
+        }
+
+        List<Product> items = slice.getContent();
+        String next = null;
+        if (slice.hasNext() && !items.isEmpty()) {
+            next = ProductCursor.after(cursor.getSort(), items.get(items.size() - 1)).encode();
+        }
+        return new ProductSlice(items, next);
     }
 
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productCache.get(id, productRepository::findById);
+    }
+
+    // Multi-get for cart and order pages: cached products are reused and the rest come from one
+    // findAllById. Products follow the order of ids; duplicate ids are returned once.
+    public ProductBatch getProductsByIds(List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids per request");
+        }
+        List<Long> requested = ids.stream().filter(id -> id != null).distinct().toList();
+        Map<Long, Product> byId = productCache.getAll(requested, this::loadById);
+
+        List<Product> products = new ArrayList<>(requested.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            Product product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new ProductBatch(products, missingIds);
     }
 
-    public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+    public List<Product> searchProducts(String keyword, int limit) {
+        // Fall back to the database only until the in-memory index has finished its startup load
+        if (!searchIndex.isReady()) {
+            return productRepository.findByNameContainingIgnoreCase(keyword,
+                    PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), Sort.by("id")));
+        }
+        return searchIndex.search(keyword, limit);
     }
 
-    public List<Product> searchProducts(String keyword) {
-        return productRepository.findByNameContainingIgnoreCase(keyword);
+    // Combined price range / category / stock filter, cheapest first. Null bounds are open.
+    public List<Product> filterProducts(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                        boolean inStockOnly, int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (!priceIndex.isReady()) {
+            return productRepository.filterProducts(
+                    minPrice != null ? Prices.fromCents(Prices.toCents(minPrice)) : BigDecimal.ZERO,
+                    maxPrice != null ? Prices.fromCents(Prices.toCents(maxPrice)) : Prices.fromCents(Long.MAX_VALUE),
+                    categoryId, inStockOnly, PageRequest.of(0, boundedLimit));
+        }
+
+        long minCents = minPrice != null ? Prices.toCents(minPrice) : Long.MIN_VALUE;
+        long maxCents = maxPrice != null ? Prices.toCents(maxPrice) : Long.MAX_VALUE;
+        List<Long> ids = priceIndex.query(categoryId, minCents, maxCents, inStockOnly, boundedLimit);
+        return loadInOrder(ids);
     }
 
-    public List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+    // Facet counts for the same filters as filterProducts; empty until the catalog has loaded
+    public Optional<FacetResult> getFacets(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                           boolean inStockOnly, List<BigDecimal> priceBuckets) {
+        if (!facetIndex.isReady()) {
+            return Optional.empty();
+        }
+        List<BigDecimal> bounds = priceBuckets == null || priceBuckets.isEmpty() ? DEFAULT_PRICE_BUCKETS : priceBuckets;
+        long[] bucketCents = bounds.stream().mapToLong(Prices::toCents).sorted().distinct().toArray();
+        return Optional.of(facetIndex.compute(categoryId,
+                minPrice != null ? Prices.toCents(minPrice) : Long.MIN_VALUE,
+                maxPrice != null ? Prices.toCents(maxPrice) : Long.MAX_VALUE,
+                inStockOnly, bucketCents));
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        resolveCategory(product);
+        Product savedProduct = productRepository.save(product);
+        publishSaved(savedProduct);
+        return savedProduct;
     }
 
     public Product updateProduct(Long id, Product productDetails) {
@@ -52,20 +167,94 @@ public class ProductService {
         product.setStockQuantity(productDetails.getStockQuantity());
         product.setImageUrl(productDetails.getImageUrl());
         product.setCategory(productDetails.getCategory());
+        resolveCategory(product);
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        publishSaved(savedProduct);
+        return savedProduct;
     }
 
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        productCache.invalidate(id);
+        for (CatalogListener listener : catalogListeners) {
+            listener.productRemoved(id);
+        }
     }
 
-    public void updateStock(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+    // Stock was changed in SQL (checkout); reload those products once and republish them
+    public void stockChanged(Collection<Long> productIds) {
+        for (Product product : productRepository.findAllById(productIds)) {
+            publishSaved(product);
+        }
+    }
+
+    // A category is being deleted: remove its products one at a time so every catalog listener
+    // drops them as well, instead of letting the category's cascade delete them behind their backs
+    public void deleteProductsInCategory(Long categoryId) {
+        List<Long> ids = new ArrayList<>();
+        ProductCursor cursor = ProductCursor.first(ProductCursor.Sort.ID);
+        while (cursor != null) {
+            ProductSlice slice = getProductSlice(cursor, MAX_PAGE_SIZE, categoryId, false);
+            for (Product product : slice.getItems()) {
+                ids.add(product.getId());
+            }
+            cursor = slice.isHasNext() ? ProductCursor.decode(slice.getNext(), ProductCursor.Sort.ID) : null;
+        }
+        for (Long id : ids) {
+            deleteProduct(id);
+        }
+    }
+
+    // A category was renamed: products embed it and are indexed by its name, so republish them,
+    // one keyset slice at a time
+    public void categoryChanged(Long categoryId) {
+        ProductCursor cursor = ProductCursor.first(ProductCursor.Sort.ID);
+        while (cursor != null) {
+            ProductSlice slice = getProductSlice(cursor, MAX_PAGE_SIZE, categoryId, false);
+            for (Product product : slice.getItems()) {
+                publishSaved(product);
+            }
+            cursor = slice.isHasNext() ? ProductCursor.decode(slice.getNext(), ProductCursor.Sort.ID) : null;
+        }
+    }
+
+    // One findAllById for the given ids, returned in the same order; ids that no longer exist are skipped
+    private List<Product> loadInOrder(List<Long> ids) {
+        Map<Long, Product> byId = loadById(ids);
+        List<Product> products = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private Map<Long, Product> loadById(Collection<Long> ids) {
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            byId.put(product.getId(), product);
+        }
+        return byId;
+    }
+
+    // Request bodies usually carry only {"category": {"id": ...}}; load the real category so
+    // the saved product (and everything indexing it) sees its name
+    private void resolveCategory(Product product) {
+        Category category = product.getCategory();
+        if (category != null && category.getId() != null) {
+            product.setCategory(categoryRepository.findById(category.getId())
+                    .orElseThrow(() -> new RuntimeException("Category not found")));
+        }
+    }
 
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        productRepository.save(product);
+    private void publishSaved(Product product) {
+        productCache.invalidate(product.getId());
+        for (CatalogListener listener : catalogListeners) {
+            listener.productSaved(product);
+        }
     }
 
 }
@@ -0,0 +1,24 @@
+package com.citukay.ecommerce.web;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.Callable;
+
+// Lifts the global async timeout for handlers marked @NoAsyncTimeout, just before async processing starts
+public class AsyncTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (handler instanceof HandlerMethod method && method.hasMethodAnnotation(NoAsyncTimeout.class)
+                && request instanceof AsyncWebRequest asyncRequest) {
+            // A non-positive timeout tells the servlet container never to time the request out
+            asyncRequest.setTimeout(-1L);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.citukay.ecommerce.web;
+
+import com.citukay.ecommerce.media.ImageVariant;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the original upload for a variant URL whose file does not exist yet (still queued in
+ * the image pipeline, or the format could not be decoded), so variant URLs are always safe to use.
+ */
+public class ImageVariantFallbackResolver extends AbstractResourceResolver {
+    private static final Pattern VARIANT_PATH =
+            Pattern.compile("^(products/)" + ImageVariant.VARIANT_DIR + "/[a-z]+/([^/]+)\\.jpg$");
+
+    // Set on the request when the original was served in place of a variant
+    public static final String FALLBACK_ATTRIBUTE = ImageVariantFallbackResolver.class.getName() + ".FALLBACK";
+
+    @Override
+    @Nullable
+    protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource != null) {
+            return resource;
+        }
+        String originalPath = originalPath(requestPath);
+        if (originalPath == null) {
+            return null;
+        }
+        Resource original = chain.resolveResource(request, originalPath, locations);
+        if (original != null && request != null) {
+            request.setAttribute(FALLBACK_ATTRIBUTE, Boolean.TRUE);
+        }
+        return original;
+    }
+
+    @Override
+    @Nullable
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    // products/variants/grid/abc.png.jpg -> products/abc.png
+    @Nullable
+    static String originalPath(String requestPath) {
+        Matcher matcher = VARIANT_PATH.matcher(requestPath);
+        return matcher.matches() ? matcher.group(1) + matcher.group(2) : null;
+    }
+}
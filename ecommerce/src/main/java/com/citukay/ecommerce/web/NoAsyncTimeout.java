@@ -0,0 +1,16 @@
+package com.citukay.ecommerce.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler whose asynchronous response may run longer than spring.mvc.async.request-timeout,
+ * such as a full-table export. The response is never timed out; it ends when the body is written
+ * or the client goes away. Applied by AsyncTimeoutInterceptor.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface NoAsyncTimeout {
+}
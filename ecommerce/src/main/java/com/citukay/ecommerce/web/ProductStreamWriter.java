@@ -0,0 +1,70 @@
+package com.citukay.ecommerce.web;
+
+import com.citukay.ecommerce.dto.ProductSlice;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.service.ProductCursor;
+import com.citukay.ecommerce.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+
+/**
+ * Writes catalog listings straight to the response with a Jackson generator. Only one keyset
+ * slice is held in memory at a time, so heap use is flat regardless of catalog size.
+ */
+@Component
+public class ProductStreamWriter {
+    private static final int CHUNK_SIZE = ProductService.MAX_PAGE_SIZE;
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+
+    public ProductStreamWriter(ProductService productService, ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Streams every matching product as a plain JSON array (same shape as the old List<Product>)
+    public StreamingResponseBody streamAll(Long categoryId, boolean availableOnly) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                ProductCursor cursor = ProductCursor.first(ProductCursor.Sort.ID);
+                while (cursor != null) {
+                    ProductSlice slice = productService.getProductSlice(cursor, CHUNK_SIZE, categoryId, availableOnly);
+                    writeItems(generator, slice);
+                    generator.flush();
+                    cursor = slice.isHasNext()
+                            ? ProductCursor.decode(slice.getNext(), ProductCursor.Sort.ID)
+                            : null;
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    // Streams a single slice as {"items": [...], "next": "...", "hasNext": true}
+    public StreamingResponseBody streamSlice(ProductSlice slice) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartObject();
+                generator.writeFieldName("items");
+                generator.writeStartArray();
+                writeItems(generator, slice);
+                generator.writeEndArray();
+                generator.writeStringField("next", slice.getNext());
+                generator.writeBooleanField("hasNext", slice.isHasNext());
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    private void writeItems(JsonGenerator generator, ProductSlice slice) throws IOException {
+        for (Product product : slice.getItems()) {
+            objectMapper.writeValue(generator, product);
+        }
+    }
+}
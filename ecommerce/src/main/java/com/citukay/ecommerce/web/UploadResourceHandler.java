@@ -0,0 +1,97 @@
+package com.citukay.ecommerce.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves uploaded files. Uploads are content-addressed, so a URL always maps to the same bytes
+ * and is cached as immutable; only a variant answered with its original (see
+ * {@link ImageVariantFallbackResolver}) must be revalidated, since the real variant replaces it.
+ * Range requests are handled by the base class. When the container supports sendfile (Tomcat
+ * NIO), whole files and single ranges are handed to the kernel instead of copied through the heap.
+ */
+public class UploadResourceHandler extends ResourceHttpRequestHandler {
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public UploadResourceHandler() {
+        setResourceResolvers(List.of(new ImageVariantFallbackResolver(), new PathResourceResolver()));
+        setResourceHttpMessageConverter(new SendfileResourceConverter());
+        setResourceRegionHttpMessageConverter(new SendfileResourceRegionConverter());
+        setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+    }
+
+    @Override
+    protected void setHeaders(HttpServletResponse response, Resource resource, @Nullable MediaType mediaType) throws IOException {
+        super.setHeaders(response, resource, mediaType);
+        HttpServletRequest request = currentRequest();
+        if (request != null && request.getAttribute(ImageVariantFallbackResolver.FALLBACK_ATTRIBUTE) != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+    }
+
+    @Nullable
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest() : null;
+    }
+
+    // Asks the container to send [start, end) of the file itself; false when it cannot
+    private static boolean sendfile(Resource resource, long start, long end) throws IOException {
+        HttpServletRequest request = currentRequest();
+        if (request == null || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED)) || !resource.isFile()) {
+            return false;
+        }
+        File file = resource.getFile();
+        request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end);
+        return true;
+    }
+
+    private static class SendfileResourceConverter extends ResourceHttpMessageConverter {
+        @Override
+        protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+            // Content-Length is already set from the file size, so the body can be left to the container
+            if (!sendfile(resource, 0, resource.contentLength())) {
+                super.writeContent(resource, outputMessage);
+            }
+        }
+    }
+
+    private static class SendfileResourceRegionConverter extends ResourceRegionHttpMessageConverter {
+        @Override
+        protected void writeResourceRegion(ResourceRegion region, HttpOutputMessage outputMessage) throws IOException {
+            Resource resource = region.getResource();
+            long start = region.getPosition();
+            long end = start + region.getCount();
+            if (!sendfile(resource, start, end)) {
+                super.writeResourceRegion(region, outputMessage);
+                return;
+            }
+            HttpHeaders headers = outputMessage.getHeaders();
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + '-' + (end - 1) + '/' + resource.contentLength());
+            headers.setContentLength(region.getCount());
+        }
+    }
+}
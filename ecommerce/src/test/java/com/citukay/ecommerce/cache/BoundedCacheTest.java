@@ -0,0 +1,59 @@
+package com.citukay.ecommerce.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+
+    @Test
+    void invalidatingAnotherKeyKeepsALoadInFlight() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1));
+        cache.get(1L, key -> {
+            cache.invalidate(2L);
+            return Optional.of("one");
+        });
+        assertEquals("one", cache.getIfPresent(1L));
+    }
+
+    @Test
+    void invalidatingTheKeyDropsTheLoadInFlight() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1));
+        Optional<String> loaded = cache.get(1L, key -> {
+            cache.invalidate(1L);
+            return Optional.of("stale");
+        });
+        assertEquals(Optional.of("stale"), loaded);
+        assertNull(cache.getIfPresent(1L));
+    }
+
+    @Test
+    void batchLoadKeepsKeysThatWereNotInvalidated() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 10, Duration.ofMinutes(1));
+        cache.getAll(Set.of(1L, 2L), keys -> {
+            cache.invalidate(2L);
+            return Map.of(1L, "one", 2L, "two");
+        });
+        assertEquals("one", cache.getIfPresent(1L));
+        assertNull(cache.getIfPresent(2L));
+    }
+
+    @Test
+    void sizeStaysBoundedAndRecentlyReadEntriesSurvive() {
+        BoundedCache<Long, String> cache = new BoundedCache<>("test", 32, Duration.ofMinutes(1));
+        cache.put(0L, "hot");
+        for (long i = 1; i <= 200; i++) {
+            cache.put(i, "v" + i);
+            cache.getIfPresent(0L);
+        }
+        assertTrue(cache.stats().getSize() <= 32);
+        assertEquals("hot", cache.getIfPresent(0L));
+    }
+}
@@ -0,0 +1,91 @@
+package com.citukay.ecommerce.cart;
+
+import com.citukay.ecommerce.entity.Cart;
+import com.citukay.ecommerce.entity.CartItem;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.entity.User;
+import com.citukay.ecommerce.repository.CartRepository;
+import com.citukay.ecommerce.repository.UserRepository;
+import com.citukay.ecommerce.service.CartService;
+import com.citukay.ecommerce.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "cart.store=database")
+class CartContentionTest {
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_PRODUCT = 200;
+
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CartRepository cartRepository;
+
+    private User user;
+    private Product first;
+    private Product second;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("contention-" + System.nanoTime() + "@example.com", "secret", "Cart", "Contention"));
+        first = productService.createProduct(new Product("Contention A", null, new BigDecimal("2.50"), 1000, null));
+        second = productService.createProduct(new Product("Contention B", null, new BigDecimal("4.00"), 1000, null));
+        cartService.getCartByUserId(user.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.findByUserId(user.getId()).ifPresent(cartRepository::delete);
+        productService.deleteProduct(first.getId());
+        productService.deleteProduct(second.getId());
+        userRepository.delete(user);
+    }
+
+    @Test
+    void concurrentAddsNeitherDuplicateLinesNorLoseIncrements() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> adds = new ArrayList<>();
+        try {
+            for (int i = 0; i < ADDS_PER_PRODUCT; i++) {
+                for (Product product : List.of(first, second)) {
+                    adds.add(pool.submit(() -> {
+                        start.await();
+                        return cartService.addToCart(user.getId(), product.getId(), 1);
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Cart cart = cartService.getCartByUserId(user.getId());
+        assertEquals(2, cart.getCartItems().size());
+        for (CartItem item : cart.getCartItems()) {
+            assertEquals(ADDS_PER_PRODUCT, item.getQuantity());
+        }
+        assertEquals(0, new BigDecimal("1300.00").compareTo(cart.getTotalAmount()));
+        assertEquals(2L * ADDS_PER_PRODUCT, cart.getVersion());
+    }
+}
@@ -0,0 +1,203 @@
+package com.citukay.ecommerce.cart;
+
+import com.citukay.ecommerce.entity.Cart;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.entity.User;
+import com.citukay.ecommerce.repository.UserRepository;
+import com.citukay.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the write-behind flush by hand against an in-memory H2 database; the scheduled flush
+ * is pushed out of the way with a long interval.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:writebehind;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "cart.store=write-behind",
+        "cart.write-behind.flush-interval=PT1H",
+        "cart.write-behind.max-flush-attempts=3"
+})
+class WriteBehindCartStoreTest {
+    private static final int ADDS_PER_PRODUCT = 300;
+
+    @Autowired
+    private WriteBehindCartStore store;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void mutationsRacingFlushesAreAllPersisted() throws Exception {
+        User user = newUser();
+        Product first = newProduct("2.50");
+        Product second = newProduct("4.00");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean adding = new AtomicBoolean(true);
+        List<Future<?>> adders = new ArrayList<>();
+        try {
+            for (Product product : List.of(first, second)) {
+                adders.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_PRODUCT; i++) {
+                        store.addItem(user.getId(), product, 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            // Flush continuously while the adds run, so lines are captured, inserted and updated mid-stream
+            Thread flusher = new Thread(() -> {
+                while (adding.get()) {
+                    store.flush();
+                }
+            });
+            flusher.start();
+            for (Future<?> adder : adders) {
+                adder.get();
+            }
+            adding.set(false);
+            flusher.join();
+        } finally {
+            pool.shutdown();
+        }
+        store.flush();
+
+        Long cartId = store.getCart(user.getId()).getId();
+        assertEquals(List.of(ADDS_PER_PRODUCT, ADDS_PER_PRODUCT), storedQuantities(cartId));
+        assertEquals(0, new BigDecimal("1950.00").compareTo(storedTotal(cartId)));
+    }
+
+    @Test
+    void failedBatchIsRetriedCartByCartAndDropsLinesForDeletedProducts() {
+        User healthy = newUser();
+        User broken = newUser();
+        Product kept = newProduct("4.00");
+        Product deleted = newProduct("2.50");
+        store.addItem(healthy.getId(), kept, 3);
+        store.addItem(broken.getId(), kept, 1);
+        store.addItem(broken.getId(), deleted, 2);
+        // Deleted behind the store's back: the broken cart's insert now violates the foreign key
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", deleted.getId());
+
+        store.flush();
+        Long healthyCart = store.getCart(healthy.getId()).getId();
+        Long brokenCart = store.getCart(broken.getId()).getId();
+        assertEquals(List.of(3), storedQuantities(healthyCart));
+        assertEquals(List.of(), storedQuantities(brokenCart));
+        assertEquals(1, store.getCart(broken.getId()).getCartItems().size());
+
+        // The next flush writes what is left of the broken cart
+        store.flush();
+        assertEquals(List.of(1), storedQuantities(brokenCart));
+        assertEquals(0, new BigDecimal("4.00").compareTo(storedTotal(brokenCart)));
+    }
+
+    @Test
+    void cartPurgedUnderneathIsDroppedAndReloaded() {
+        User user = newUser();
+        Product product = newProduct("1.00");
+        store.addItem(user.getId(), product, 1);
+        store.flush();
+        Long cartId = store.getCart(user.getId()).getId();
+
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id = ?", cartId);
+        jdbcTemplate.update("DELETE FROM carts WHERE id = ?", cartId);
+        store.addItem(user.getId(), newProduct("2.00"), 1);
+        store.flush();
+
+        Cart reloaded = store.getCart(user.getId());
+        assertTrue(reloaded.getId() != null && !reloaded.getId().equals(cartId));
+        assertEquals(0, reloaded.getCartItems().size());
+    }
+
+    @Test
+    void purgedCartsAreForgotten() {
+        User user = newUser();
+        store.addItem(user.getId(), newProduct("1.00"), 1);
+        store.flush();
+        Long cartId = store.getCart(user.getId()).getId();
+        int resident = store.size();
+
+        store.purged(List.of(cartId));
+        assertEquals(resident - 1, store.size());
+    }
+
+    @Test
+    void cartThatKeepsFailingIsGivenUpAfterMaxAttempts() {
+        User user = newUser();
+        Product product = newProduct("1.00");
+        store.getCart(user.getId());
+        store.flush();
+        jdbcTemplate.execute("ALTER TABLE cart_items ADD CONSTRAINT cart_items_test_cap CHECK (quantity < 1000)");
+        try {
+            store.addItem(user.getId(), product, 1000);
+            int resident = store.size();
+            store.flush();
+            store.flush();
+            assertEquals(resident, store.size());
+            store.flush();
+            assertEquals(resident - 1, store.size());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE cart_items DROP CONSTRAINT cart_items_test_cap");
+        }
+        assertEquals(0, store.getCart(user.getId()).getCartItems().size());
+    }
+
+    @Test
+    void shutdownFlushesDirtyCartsIncludingOnesWithDeletedProducts() {
+        User user = newUser();
+        Product kept = newProduct("3.00");
+        Product deleted = newProduct("5.00");
+        store.addItem(user.getId(), kept, 2);
+        store.addItem(user.getId(), deleted, 1);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", deleted.getId());
+
+        store.shutdown();
+        Long cartId = store.getCart(user.getId()).getId();
+        assertEquals(List.of(2), storedQuantities(cartId));
+        assertEquals(0, new BigDecimal("6.00").compareTo(storedTotal(cartId)));
+    }
+
+    private User newUser() {
+        return userRepository.save(new User("write-behind-" + System.nanoTime() + "@example.com", "secret", "Write", "Behind"));
+    }
+
+    private Product newProduct(String price) {
+        return productService.createProduct(new Product("Write-behind " + System.nanoTime(), null, new BigDecimal(price), 1000, null));
+    }
+
+    private List<Integer> storedQuantities(Long cartId) {
+        return jdbcTemplate.queryForList("SELECT quantity FROM cart_items WHERE cart_id = ? ORDER BY product_id",
+                Integer.class, cartId);
+    }
+
+    private BigDecimal storedTotal(Long cartId) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT total_amount FROM carts WHERE id = ?", cartId);
+        return (BigDecimal) row.get("total_amount");
+    }
+}
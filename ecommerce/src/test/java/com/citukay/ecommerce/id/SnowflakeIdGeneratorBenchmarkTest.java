@@ -0,0 +1,83 @@
+package com.citukay.ecommerce.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorBenchmarkTest {
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 100_000;
+
+    @Test
+    void manyThreadsGetUniqueIncreasingIds() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+            List<long[]> perThread = new ArrayList<>();
+            for (Future<long[]> result : results) {
+                perThread.add(result.get());
+            }
+
+            Set<Long> unique = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+            for (long[] ids : perThread) {
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(i == 0 || ids[i] > ids[i - 1], "ids must increase within a thread");
+                    assertEquals(7, (ids[i] >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID);
+                    unique.add(ids[i]);
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, unique.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void exhaustedSequenceWaitsForTheClock() {
+        // The clock moves on by one millisecond every 5000 reads
+        AtomicLong reads = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1,
+                () -> SnowflakeIdGenerator.EPOCH_MILLIS + 10_000 + reads.incrementAndGet() / 5000);
+
+        for (int i = 0; i < 20_000; i++) {
+            long millis = generator.nextId() >>> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS);
+            long clockMillis = 10_000 + reads.get() / 5000;
+            assertTrue(millis <= clockMillis, "ids must not run ahead of the clock");
+        }
+    }
+
+    @Test
+    void clockSteppingBackDoesNotRepeatIds() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH_MILLIS + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, now::get);
+
+        long before = generator.nextId();
+        now.addAndGet(-5_000);
+        long after = generator.nextId();
+        assertTrue(after > before);
+    }
+}
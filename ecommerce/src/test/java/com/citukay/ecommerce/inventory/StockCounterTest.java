@@ -0,0 +1,102 @@
+package com.citukay.ecommerce.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockCounterTest {
+    private static final int THREADS = 16;
+    private static final int STOCK = 1_000_000;
+
+    @Test
+    void concurrentCommitsAndReconciliationNeverOversell() throws Exception {
+        StockCounter counter = new StockCounter(STOCK);
+        // Stands in for products.stock_quantity
+        AtomicLong storedStock = new AtomicLong(STOCK);
+        AtomicBoolean selling = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> sellers = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                sellers.add(pool.submit(() -> {
+                    start.await();
+                    int sold = 0;
+                    while (counter.reserve(1)) {
+                        if (sold % 7 == 0) {
+                            // An abandoned checkout gives its unit back
+                            counter.release(1);
+                            if (!counter.reserve(1)) {
+                                break;
+                            }
+                        }
+                        counter.commit(1);
+                        sold++;
+                    }
+                    return sold;
+                }));
+            }
+            // Reconciler: write the unflushed units back, then resync from the stored value
+            Future<?> reconciler = pool.submit(() -> {
+                start.await();
+                while (selling.get()) {
+                    reconcile(counter, storedStock);
+                }
+                return null;
+            });
+
+            start.countDown();
+            int sold = 0;
+            for (Future<Integer> seller : sellers) {
+                sold += seller.get();
+            }
+            selling.set(false);
+            reconciler.get();
+            reconcile(counter, storedStock);
+
+            assertEquals(STOCK, sold);
+            assertEquals(0, counter.onHand());
+            assertEquals(0, counter.reserved());
+            assertEquals(0, counter.unflushed());
+            assertEquals(0, storedStock.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void resyncKeepsUnflushedCommitsAndReservations() {
+        StockCounter counter = new StockCounter(10);
+        counter.reserve(3);
+        counter.commit(2);
+        counter.reserve(1);
+
+        // An admin raises the stored stock from 10 to 20 before the 2 committed units are written back
+        counter.resync(20);
+        assertEquals(18, counter.onHand());
+        assertEquals(2, counter.reserved());
+
+        counter.flushed(2);
+        counter.resync(18);
+        assertEquals(18, counter.onHand());
+        assertEquals(16, counter.available());
+    }
+
+    private static void reconcile(StockCounter counter, AtomicLong storedStock) {
+        long units = counter.unflushed();
+        if (units > 0) {
+            storedStock.addAndGet(-units);
+            counter.flushed(units);
+        }
+        counter.resync((int) storedStock.get());
+    }
+}
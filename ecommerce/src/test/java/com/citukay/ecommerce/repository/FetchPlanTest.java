@@ -0,0 +1,126 @@
+package com.citukay.ecommerce.repository;
+
+import com.citukay.ecommerce.entity.Address;
+import com.citukay.ecommerce.entity.Category;
+import com.citukay.ecommerce.entity.Order;
+import com.citukay.ecommerce.entity.Product;
+import com.citukay.ecommerce.entity.User;
+import com.citukay.ecommerce.service.CartService;
+import com.citukay.ecommerce.service.CategoryService;
+import com.citukay.ecommerce.service.OrderService;
+import com.citukay.ecommerce.service.PaymentService;
+import com.citukay.ecommerce.service.ProductService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The list endpoints read everything they serialize with one SELECT, however many rows there are.
+ * Runs on an in-memory H2 database and counts only statements issued by the request thread, so
+ * the background jobs do not disturb the numbers.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fetchplans;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.citukay.ecommerce.repository.FetchPlanTest$SelectCounter"
+})
+@AutoConfigureMockMvc
+class FetchPlanTest {
+    private static final int ROWS = 3;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private PaymentService paymentService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryService.createCategory(new Category("Fetch plans " + System.nanoTime(), null));
+        user = userRepository.save(new User("fetch-" + System.nanoTime() + "@example.com", "secret", "Fetch", "Plan"));
+        for (int i = 0; i < ROWS; i++) {
+            Product product = productService.createProduct(
+                    new Product("Fetch plan " + i, null, new BigDecimal("3.00"), 100, category));
+            Address address = new Address();
+            address.setStreet("Street " + i);
+            address.setUser(user);
+            addressRepository.save(address);
+
+            cartService.addToCart(user.getId(), product.getId(), 1);
+            Order order = orderService.createOrder(user.getId(),
+                    List.of(new OrderService.OrderItemRequest(product.getId(), 1)));
+            paymentService.createPayment(order.getId(), "CARD");
+        }
+    }
+
+    @Test
+    void ordersAreReadWithOneSelect() throws Exception {
+        assertEquals(1, selectsFor("/api/orders"));
+    }
+
+    @Test
+    void usersAreReadWithOneSelect() throws Exception {
+        assertEquals(1, selectsFor("/api/users"));
+    }
+
+    @Test
+    void cartIsReadWithOneSelect() throws Exception {
+        assertEquals(1, selectsFor("/api/cart/" + user.getId()));
+    }
+
+    private int selectsFor(String path) throws Exception {
+        SelectCounter.reset();
+        mvc.perform(get(path)).andExpect(status().isOk());
+        return SelectCounter.count();
+    }
+
+    // Counts the SELECTs prepared on the calling thread
+    public static class SelectCounter implements StatementInspector {
+        private static final ThreadLocal<int[]> SELECTS = ThreadLocal.withInitial(() -> new int[1]);
+
+        static void reset() {
+            SELECTS.get()[0] = 0;
+        }
+
+        static int count() {
+            return SELECTS.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+                SELECTS.get()[0]++;
+            }
+            return sql;
+        }
+    }
+}
@@ -38,7 +38,7 @@ const Cart = () => {
       <div className="cart-content">
         <div className="cart-items">
           {items.map((item) => (
-            <CartItem key={item.id} item={item} />
+            <CartItem key={item.product?.id ?? item.id} item={item} />
           ))}
         </div>
         
@@ -13,10 +13,10 @@ const CartItem = ({ item }) => {
   // Safely extract values with defaults
   const product = item?.product || {};
   const quantity = item?.quantity || 1;
-  const price = product?.price || 0; // Default to 0 if undefined
+  const price = item?.unitPrice ?? product?.price ?? 0; // Price captured when the line was added
   const itemId = item?.id;
   const productName = product?.name || 'Product';
-  const productImage = product?.imageUrl;
+  const productImage = product?.imageVariants?.thumbnail || product?.imageUrl;
 
   const getImageUrl = (imagePath) => {
     if (!imagePath) return '/images/default-product.jpg';
@@ -1,5 +1,5 @@
 // components/Checkout.jsx
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useCart } from '../context/CartContext';
 import { useAuth } from '../context/AuthContext';
 import { useNavigate } from 'react-router-dom';
@@ -20,6 +20,10 @@ const Checkout = () => {
   const [error, setError] = useState('');
   const [fetchingAddresses, setFetchingAddresses] = useState(true);
 
+  // Idempotency keys for the current checkout attempt. Kept across retries of the same items so a
+  // resubmitted checkout is answered with the first order instead of creating a second one.
+  const attempt = useRef(null);
+
   // Get items from cart object
   const items = cart?.cartItems || [];
   
@@ -113,11 +117,17 @@ const Checkout = () => {
       console.log('Selected address:', selectedAddress);
       console.log('Payment method:', formData.paymentMethod);
 
+      const itemsKey = JSON.stringify(orderItems);
+      if (!attempt.current || attempt.current.items !== itemsKey) {
+        attempt.current = { items: itemsKey, orderKey: crypto.randomUUID(), paymentKey: crypto.randomUUID() };
+      }
+
       // Send to backend - MATCHING THE EXISTING ENDPOINT
       const response = await fetch(`http://localhost:8080/api/orders/user/${user.id}`, {
         method: 'POST',
         headers: {
           'Content-Type': 'application/json',
+          'Idempotency-Key': attempt.current.orderKey,
         },
         body: JSON.stringify(orderItems)
       });
@@ -134,6 +144,7 @@ const Checkout = () => {
             method: 'POST',
             headers: {
               'Content-Type': 'application/x-www-form-urlencoded',
+              'Idempotency-Key': attempt.current.paymentKey,
             },
             body: `paymentMethod=${formData.paymentMethod}`
           });
@@ -213,7 +224,7 @@ const Checkout = () => {
                 <div className="item-image">
                   <img 
                     src={item.product?.imageUrl ? 
-                      `http://localhost:8080${item.product.imageUrl}` : 
+                      `http://localhost:8080${item.product.imageVariants?.thumbnail || item.product.imageUrl}` : 
                       '/images/default-product.jpg'} 
                     alt={item.product?.name}
                   />
@@ -221,10 +232,10 @@ const Checkout = () => {
                 <div className="item-details">
                   <h4>{item.product?.name || 'Product'}</h4>
                   <p>Quantity: {item.quantity}</p>
-                  <p>${(item.product?.price || 0).toFixed(2)} each</p>
+                  <p>${(item.unitPrice ?? item.product?.price ?? 0).toFixed(2)} each</p>
                 </div>
                 <div className="item-total">
-                  ${((item.product?.price || 0) * item.quantity).toFixed(2)}
+                  ${((item.unitPrice ?? item.product?.price ?? 0) * item.quantity).toFixed(2)}
                 </div>
               </div>
             ))}
@@ -9,6 +9,8 @@ const OrderHistory = () => {
   const { user } = useAuth();
   const [orders, setOrders] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [selectedOrderId, setSelectedOrderId] = useState(null); // Changed from selectedOrder
 
   useEffect(() => {
@@ -19,8 +21,9 @@ const OrderHistory = () => {
 
   const loadOrders = async () => {
     try {
-      const data = await api.getUserOrders(user.id);
-      setOrders(data);
+      const page = await api.getUserOrderSummaries(user.id);
+      setOrders(page.items);
+      setNextCursor(page.next);
     } catch (error) {
       console.error('Error loading orders:', error);
     } finally {
@@ -28,6 +31,19 @@ const OrderHistory = () => {
     }
   };
 
+  const loadMoreOrders = async () => {
+    setLoadingMore(true);
+    try {
+      const page = await api.getUserOrderSummaries(user.id, nextCursor);
+      setOrders(prev => [...prev, ...page.items]);
+      setNextCursor(page.next);
+    } catch (error) {
+      console.error('Error loading more orders:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const formatDate = (dateString) => {
     return new Date(dateString).toLocaleDateString();
   };
@@ -48,12 +64,10 @@ const OrderHistory = () => {
   }
 
   if (selectedOrderId) {
-    // Find the selected order to pass some data
-    const selectedOrder = orders.find(o => o.id === selectedOrderId);
+    // The summaries carry no line items; OrderDetail loads the full order by id
     return (
       <OrderDetail 
         orderId={selectedOrderId}
-        order={selectedOrder} // Optional: pass order data for immediate display
         onBack={() => setSelectedOrderId(null)} 
       />
     );
@@ -93,15 +107,10 @@ const OrderHistory = () => {
             
             <div className="order-summary">
               <div className="order-items">
-                {order.items && order.items.slice(0, 2).map((item, index) => (
-                  <div key={index} className="order-item-preview">
-                    <span>{item.productName}</span>
-                    <span>x{item.quantity}</span>
-                  </div>
-                ))}
-                {order.items && order.items.length > 2 && (
-                  <div className="more-items">+{order.items.length - 2} more items</div>
-                )}
+                <div className="order-item-preview">
+                  <span>{order.orderNumber}</span>
+                  <span>{order.itemCount} {order.itemCount === 1 ? 'item' : 'items'}</span>
+                </div>
               </div>
               
               <div className="order-total">
@@ -120,6 +129,12 @@ const OrderHistory = () => {
           </div>
         ))}
       </div>
+
+      {nextCursor && (
+        <button className="btn-primary" onClick={loadMoreOrders} disabled={loadingMore}>
+          {loadingMore ? 'Loading...' : 'Load More Orders'}
+        </button>
+      )}
     </div>
   );
 };
@@ -36,7 +36,7 @@ const ProductCard = ({ product }) => {
     <div className="product-card" onClick={handleViewDetails}>
       <div className="product-image">
         <img 
-          src={product.imageUrl || '/images/default-product.jpg'} 
+          src={product.imageVariants?.grid || product.imageUrl || '/images/default-product.jpg'} 
           alt={product.name}
           onError={(e) => {
             // Fallback if image fails to load
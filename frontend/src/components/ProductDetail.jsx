@@ -121,7 +121,7 @@ const ProductDetail = () => {
         <div className="product-images">
           <div className="main-image">
             <img 
-              src={getImageUrl(product.imageUrl)} 
+              src={getImageUrl(product.imageVariants?.detail || product.imageUrl)} 
               alt={product.name}
               onError={handleImageError}
               onLoad={() => console.log('Image loaded successfully')}
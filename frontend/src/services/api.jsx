@@ -98,6 +98,17 @@ async register(userData) {
     return transformProductImages(data);
   },
 
+  // One request for many products (cart/order pages); unknown ids come back in missingIds
+  async getProductsByIds(ids) {
+    const response = await fetch(`${API_BASE_URL}/products/batch`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify(ids)
+    });
+    const data = await response.json();
+    return { ...data, products: transformProductImages(data.products) };
+  },
+
   async searchProducts(keyword) {
     const response = await fetch(`${API_BASE_URL}/products/search?keyword=${encodeURIComponent(keyword)}`);
     const data = await response.json();
@@ -137,6 +148,16 @@ async register(userData) {
     return response.json();
   },
 
+  // operations: [{ action: 'add' | 'update' | 'remove', productId, quantity }], applied all-or-nothing
+  async applyCartOperations(userId, operations) {
+    const response = await fetch(`${API_BASE_URL}/cart/${userId}/batch`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify(operations)
+    });
+    return response.json();
+  },
+
   async clearCart(userId) {
     const response = await fetch(`${API_BASE_URL}/cart/${userId}/clear`, {
       method: 'DELETE'
@@ -160,15 +181,78 @@ async register(userData) {
     return response.json();
   },
 
-  async createOrder(userId, items) {
-    const response = await fetch(`${API_BASE_URL}/orders/user/${userId}`, {
+  // Newest-first history page without line items: { items, next, hasNext }; pass next back as cursor
+  async getUserOrderSummaries(userId, cursor, size = 20) {
+    const params = new URLSearchParams({ size });
+    if (cursor) params.set('cursor', cursor);
+    const response = await fetch(`${API_BASE_URL}/orders/user/${userId}/summary?${params}`);
+    return response.json();
+  },
+
+  // Pass the id from reserveStock to commit the units held when checkout started
+  // Create idempotencyKey once per checkout attempt and pass the same one on every retry, so only
+  // one order is created
+  async createOrder(userId, items, reservationId, idempotencyKey) {
+    const query = reservationId ? `?reservationId=${encodeURIComponent(reservationId)}` : '';
+    const headers = { 'Content-Type': 'application/json' };
+    if (idempotencyKey) headers['Idempotency-Key'] = idempotencyKey;
+    const response = await fetch(`${API_BASE_URL}/orders/user/${userId}${query}`, {
+      method: 'POST',
+      headers,
+      body: JSON.stringify(items)
+    });
+    return response.json();
+  },
+
+  // Accepted-then-processed checkout: resolves with { orderNumber, stage } as soon as the order is queued
+  async placeOrderAsync(userId, items, { reservationId, paymentMethod } = {}) {
+    const params = new URLSearchParams();
+    if (reservationId) params.set('reservationId', reservationId);
+    if (paymentMethod) params.set('paymentMethod', paymentMethod);
+    const response = await fetch(`${API_BASE_URL}/orders/user/${userId}/async?${params}`, {
       method: 'POST',
       headers: { 'Content-Type': 'application/json' },
       body: JSON.stringify(items)
     });
+    if (!response.ok) {
+      throw new Error(response.status === 503 ? 'Checkout is busy, please retry' : 'Failed to place order');
+    }
+    return response.json();
+  },
+
+  // Calls onProgress for every stage until a terminal one (COMPLETED, PAYMENT_FAILED or FAILED);
+  // PAYMENT_FAILED means the order was placed but still needs paying. Returns a function that stops following
+  followOrder(orderNumber, onProgress) {
+    const source = new EventSource(`${API_BASE_URL}/orders/progress/${orderNumber}`);
+    source.addEventListener('progress', (event) => {
+      const progress = JSON.parse(event.data);
+      onProgress(progress);
+      if (['COMPLETED', 'PAYMENT_FAILED', 'FAILED'].includes(progress.stage)) {
+        source.close();
+      }
+    });
+    return () => source.close();
+  },
+
+  // Inventory holds: items are [{ productId, quantity }]; an unused hold expires on its own
+  async reserveStock(items) {
+    const response = await fetch(`${API_BASE_URL}/inventory/reservations`, {
+      method: 'POST',
+      headers: { 'Content-Type': 'application/json' },
+      body: JSON.stringify(items)
+    });
+    if (!response.ok) {
+      throw new Error('Not enough stock');
+    }
     return response.json();
   },
 
+  async releaseReservation(reservationId) {
+    await fetch(`${API_BASE_URL}/inventory/reservations/${reservationId}`, {
+      method: 'DELETE'
+    });
+  },
+
   // Categories (unchanged)
   async getCategories() {
     const response = await fetch(`${API_BASE_URL}/categories`);
@@ -180,10 +264,11 @@ async register(userData) {
     return response.json();
   },
 
-  // Payments (unchanged)
-  async createPayment(orderId, paymentMethod) {
+  // Payments: like createOrder, reuse the same idempotencyKey when retrying a payment
+  async createPayment(orderId, paymentMethod, idempotencyKey) {
     const response = await fetch(`${API_BASE_URL}/payment/order/${orderId}?paymentMethod=${paymentMethod}`, {
-      method: 'POST'
+      method: 'POST',
+      headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : {}
     });
     return response.json();
   },
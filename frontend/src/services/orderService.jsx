@@ -67,6 +67,27 @@ export const orderService = {
     return response.json();
   },
 
+  // Moves many orders at once; resolves with { status, requested, updated, skipped }
+  async updateOrderStatuses(orderIds, status) {
+    const response = await fetch(
+      `${API_BASE_URL}/orders/status?status=${encodeURIComponent(status)}`,
+      {
+        method: 'PUT',
+        headers: {
+          'Content-Type': 'application/json',
+          'Accept': 'application/json'
+        },
+        body: JSON.stringify(orderIds)
+      }
+    );
+
+    if (!response.ok) {
+      throw new Error('Failed to update order statuses');
+    }
+
+    return response.json();
+  },
+
   async createPayment(orderId, paymentMethod) {
     const response = await fetch(
       `${API_BASE_URL}/payment/order/${orderId}?paymentMethod=${encodeURIComponent(paymentMethod)}`,